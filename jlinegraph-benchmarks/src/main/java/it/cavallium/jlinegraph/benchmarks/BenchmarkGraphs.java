@@ -0,0 +1,91 @@
+package it.cavallium.jlinegraph.benchmarks;
+
+import it.cavallium.jlinegraph.AxisMode;
+import it.cavallium.jlinegraph.Color;
+import it.cavallium.jlinegraph.Density;
+import it.cavallium.jlinegraph.Downsampling;
+import it.cavallium.jlinegraph.GraphAxisStyle;
+import it.cavallium.jlinegraph.GraphBounds;
+import it.cavallium.jlinegraph.GraphColors;
+import it.cavallium.jlinegraph.GraphFonts;
+import it.cavallium.jlinegraph.GraphStyle;
+import it.cavallium.jlinegraph.MarkerShape;
+import it.cavallium.jlinegraph.SeriesData;
+import it.cavallium.jlinegraph.SeriesStyle;
+import it.cavallium.jlinegraph.VertexColumns;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic data sets and styles shared by the benchmarks
+ */
+public final class BenchmarkGraphs {
+
+	private BenchmarkGraphs() {
+	}
+
+	/**
+	 * How the series are drawn
+	 */
+	public enum SeriesMode {
+		LINE,
+		AREA,
+		POINTS,
+		DENSITY
+	}
+
+	/**
+	 * @return random walks sorted by x
+	 */
+	static List<SeriesData> randomWalks(int seriesCount, int pointsPerSeries) {
+		var random = new SplittableRandom(42);
+		var series = new ArrayList<SeriesData>(seriesCount);
+		for (int s = 0; s < seriesCount; s++) {
+			var xs = new double[pointsPerSeries];
+			var ys = new double[pointsPerSeries];
+			double y = 0;
+			for (int i = 0; i < pointsPerSeries; i++) {
+				y += random.nextDouble() - 0.5d;
+				xs[i] = i;
+				ys[i] = y;
+			}
+			series.add(new SeriesData(VertexColumns.of(xs, ys), true, "Series " + s));
+		}
+		return series;
+	}
+
+	static GraphStyle style(int seriesCount,
+			SeriesMode seriesMode,
+			double smoothness,
+			AxisMode axisMode,
+			boolean showLegend) {
+		var random = new SplittableRandom(7);
+		var seriesStyles = new ArrayList<SeriesStyle>(seriesCount);
+		for (int s = 0; s < seriesCount; s++) {
+			var color = new Color((float) random.nextDouble(), (float) random.nextDouble(), (float) random.nextDouble(), 1f);
+			seriesStyles.add(switch (seriesMode) {
+				case LINE -> new SeriesStyle(color, 0, 1, 0, smoothness);
+				case AREA -> new SeriesStyle(color, 0, 1, 0.3, smoothness);
+				case POINTS -> new SeriesStyle(color, 1, 0, 0, smoothness);
+				case DENSITY -> new SeriesStyle(color, 0, 0, 0, smoothness, Downsampling.NONE, MarkerShape.CIRCLE,
+						Density.OPACITY);
+			});
+		}
+		var x = new GraphAxisStyle("X axis", true, axisMode, "%.2fs"::formatted);
+		var y = new GraphAxisStyle("Y axis", true, axisMode, "%.2fm"::formatted);
+		return new GraphStyle(seriesStyles, x, y, GraphColors.DARK, new GraphFonts(10f, 18f, 12f, 12f), 2f, showLegend, 1);
+	}
+
+	/**
+	 * @param imageSize size in the format WIDTHxHEIGHT
+	 */
+	static GraphBounds bounds(String imageSize) {
+		var separator = imageSize.indexOf('x');
+		return new GraphBounds(0,
+				0,
+				Integer.parseInt(imageSize.substring(0, separator)),
+				Integer.parseInt(imageSize.substring(separator + 1))
+		);
+	}
+}
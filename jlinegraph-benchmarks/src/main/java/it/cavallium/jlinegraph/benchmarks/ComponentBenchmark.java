@@ -0,0 +1,101 @@
+package it.cavallium.jlinegraph.benchmarks;
+
+import it.cavallium.jlinegraph.Bezier;
+import it.cavallium.jlinegraph.GraphBounds;
+import it.cavallium.jlinegraph.NiceScale;
+import it.cavallium.jlinegraph.SeriesData;
+import it.cavallium.jlinegraph.VertexColumns;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building blocks of the render pipeline, measured in isolation
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ComponentBenchmark {
+
+	@Param({"1000", "100000"})
+	public int pointsPerSeries;
+
+	@Param({"10"})
+	public int seriesCount;
+
+	private double[][] seriesXs;
+	private double[][] seriesYs;
+	/**
+	 * Series with new columns at each invocation, that haven't computed their bounds yet
+	 */
+	private List<SeriesData> series;
+	private Point2D[] points;
+	private double scaleMin;
+	private double scaleMax;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		var walks = BenchmarkGraphs.randomWalks(seriesCount, pointsPerSeries);
+		seriesXs = new double[seriesCount][pointsPerSeries];
+		seriesYs = new double[seriesCount][pointsPerSeries];
+		for (int s = 0; s < seriesCount; s++) {
+			var columns = walks.get(s).columns();
+			for (int i = 0; i < pointsPerSeries; i++) {
+				seriesXs[s][i] = columns.x(i);
+				seriesYs[s][i] = columns.y(i);
+			}
+		}
+		var random = new SplittableRandom(3);
+		points = new Point2D[pointsPerSeries];
+		for (int i = 0; i < pointsPerSeries; i++) {
+			points[i] = new Point2D.Double(i, random.nextDouble() * 100);
+		}
+		scaleMin = -random.nextDouble() * 1000;
+		scaleMax = random.nextDouble() * 1000;
+	}
+
+	/**
+	 * The columns cache their bounds, so each invocation wraps the same vertices in new columns
+	 */
+	@Setup(Level.Invocation)
+	public void setupSeries() {
+		series = new ArrayList<>(seriesCount);
+		for (int s = 0; s < seriesCount; s++) {
+			series.add(new SeriesData(VertexColumns.of(seriesXs[s], seriesYs[s]), true, "Series " + s));
+		}
+	}
+
+	@Benchmark
+	public Bezier bezier() {
+		return new Bezier(points);
+	}
+
+	@Benchmark
+	public double niceScale() {
+		var scale = new NiceScale(scaleMin, scaleMax);
+		scale.setMaxTicks(20);
+		return scale.getTickSpacing();
+	}
+
+	@Benchmark
+	public GraphBounds graphBounds() {
+		return GraphBounds.fromSeriesData(series, false, false);
+	}
+}
@@ -0,0 +1,80 @@
+package it.cavallium.jlinegraph.benchmarks;
+
+import it.cavallium.jlinegraph.AWTBufferedGraphRenderer;
+import it.cavallium.jlinegraph.AWTGraphRenderer;
+import it.cavallium.jlinegraph.AxisMode;
+import it.cavallium.jlinegraph.Graph;
+import it.cavallium.jlinegraph.GraphBounds;
+import it.cavallium.jlinegraph.GraphData;
+import it.cavallium.jlinegraph.benchmarks.BenchmarkGraphs.SeriesMode;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Small charts where layout, labels and legend dominate the render time
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class DecorationBenchmark {
+
+	@Param({"SHOW_WITH_VALUES", "SHOW_RULER_ONLY", "HIDE"})
+	public AxisMode axisMode;
+
+	@Param({"true", "false"})
+	public boolean showLegend;
+
+	@Param({"200x60", "800x600"})
+	public String imageSize;
+
+	private Graph graph;
+	private GraphBounds bounds;
+	private AWTBufferedGraphRenderer bufferedRenderer;
+	private BufferedImage target;
+	private Graphics2D targetGraphics;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		graph = new Graph("Benchmark",
+				new GraphData(BenchmarkGraphs.randomWalks(3, 50)),
+				BenchmarkGraphs.style(3, SeriesMode.LINE, 0, axisMode, showLegend)
+		);
+		bounds = BenchmarkGraphs.bounds(imageSize);
+		bufferedRenderer = new AWTBufferedGraphRenderer();
+		target = new BufferedImage((int) bounds.maxX(), (int) bounds.maxY(), BufferedImage.TYPE_INT_ARGB);
+		targetGraphics = target.createGraphics();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		targetGraphics.dispose();
+	}
+
+	@Benchmark
+	public BufferedImage awtBufferedRenderer() {
+		return bufferedRenderer.renderGraph(graph, bounds);
+	}
+
+	@Benchmark
+	public BufferedImage awtRenderer() {
+		AWTGraphRenderer.renderGraph(targetGraphics, graph, bounds);
+		return target;
+	}
+}
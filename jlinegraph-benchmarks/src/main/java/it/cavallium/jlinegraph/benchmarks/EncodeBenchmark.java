@@ -0,0 +1,74 @@
+package it.cavallium.jlinegraph.benchmarks;
+
+import it.cavallium.jlinegraph.AWTBufferedGraphRenderer;
+import it.cavallium.jlinegraph.AxisMode;
+import it.cavallium.jlinegraph.Graph;
+import it.cavallium.jlinegraph.GraphData;
+import it.cavallium.jlinegraph.PNGEncoder;
+import it.cavallium.jlinegraph.benchmarks.BenchmarkGraphs.SeriesMode;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PNG encoding of a rendered image
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class EncodeBenchmark {
+
+	@Param({"800x600", "1920x1080", "4000x3000"})
+	public String imageSize;
+
+	private BufferedImage image;
+	private WritableByteChannel channel;
+	private PNGEncoder parallelEncoder;
+	private PNGEncoder sequentialEncoder;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		var graph = new Graph("Benchmark",
+				new GraphData(BenchmarkGraphs.randomWalks(10, 10000)),
+				BenchmarkGraphs.style(10, SeriesMode.AREA, 1, AxisMode.SHOW_WITH_VALUES, true)
+		);
+		image = new AWTBufferedGraphRenderer().renderGraph(graph, BenchmarkGraphs.bounds(imageSize));
+		channel = Channels.newChannel(OutputStream.nullOutputStream());
+		parallelEncoder = new PNGEncoder();
+		sequentialEncoder = new PNGEncoder(null, PNGEncoder.DEFAULT_LEVEL);
+	}
+
+	@Benchmark
+	public void pngEncoderParallel() throws IOException {
+		parallelEncoder.write(image, channel);
+	}
+
+	@Benchmark
+	public void pngEncoderSequential() throws IOException {
+		sequentialEncoder.write(image, channel);
+	}
+
+	@Benchmark
+	public void imageIO() throws IOException {
+		ImageIO.write(image, "png", OutputStream.nullOutputStream());
+	}
+}
@@ -0,0 +1,96 @@
+package it.cavallium.jlinegraph.benchmarks;
+
+import it.cavallium.jlinegraph.AWTBufferedGraphRenderer;
+import it.cavallium.jlinegraph.AWTGraphRenderer;
+import it.cavallium.jlinegraph.AxisMode;
+import it.cavallium.jlinegraph.Graph;
+import it.cavallium.jlinegraph.GraphBounds;
+import it.cavallium.jlinegraph.GraphData;
+import it.cavallium.jlinegraph.SoftwareGraphRenderer;
+import it.cavallium.jlinegraph.benchmarks.BenchmarkGraphs.SeriesMode;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Full render pipeline, varying the data and the series style
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+
+	@Param({"1", "10", "50"})
+	public int seriesCount;
+
+	@Param({"1000", "100000"})
+	public int pointsPerSeries;
+
+	@Param({"0", "1"})
+	public double smoothness;
+
+	@Param({"LINE", "AREA", "POINTS", "DENSITY"})
+	public SeriesMode seriesMode;
+
+	@Param({"800x600", "1920x1080"})
+	public String imageSize;
+
+	private Graph graph;
+	private GraphBounds bounds;
+	private AWTBufferedGraphRenderer bufferedRenderer;
+	private BufferedImage target;
+	private Graphics2D targetGraphics;
+	private SoftwareGraphRenderer softwareRenderer;
+	private int[] softwareTarget;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		graph = new Graph("Benchmark",
+				new GraphData(BenchmarkGraphs.randomWalks(seriesCount, pointsPerSeries)),
+				BenchmarkGraphs.style(seriesCount, seriesMode, smoothness, AxisMode.SHOW_WITH_VALUES, true)
+		);
+		bounds = BenchmarkGraphs.bounds(imageSize);
+		bufferedRenderer = new AWTBufferedGraphRenderer();
+		target = new BufferedImage((int) bounds.maxX(), (int) bounds.maxY(), BufferedImage.TYPE_INT_ARGB);
+		targetGraphics = target.createGraphics();
+		softwareRenderer = new SoftwareGraphRenderer();
+		softwareTarget = new int[(int) bounds.maxX() * (int) bounds.maxY()];
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		targetGraphics.dispose();
+	}
+
+	@Benchmark
+	public BufferedImage awtBufferedRenderer() {
+		return bufferedRenderer.renderGraph(graph, bounds);
+	}
+
+	@Benchmark
+	public BufferedImage awtRenderer() {
+		AWTGraphRenderer.renderGraph(targetGraphics, graph, bounds);
+		return target;
+	}
+
+	@Benchmark
+	public int[] softwareRenderer() {
+		return softwareRenderer.renderGraph(graph, bounds, softwareTarget);
+	}
+}
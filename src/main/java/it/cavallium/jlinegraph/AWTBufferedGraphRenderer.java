@@ -1,19 +1,514 @@
 package it.cavallium.jlinegraph;
 
+import java.awt.AlphaComposite;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.Area;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntFunction;
 
 public class AWTBufferedGraphRenderer implements IGraphRenderer<BufferedImage> {
 
+	private final ForkJoinPool pool;
+	private final RasterPool rasterPool;
+	private final RenderListener listener;
+
+	/**
+	 * Creates a renderer that draws all the series sequentially
+	 */
+	public AWTBufferedGraphRenderer() {
+		this(null, null);
+	}
+
+	/**
+	 * Creates a renderer that rasterizes each series into its own layer, in parallel on the specified pool.
+	 * The layers are composited in series order, so the result matches the sequential rendering.
+	 * The pool is also used to render the tiles of tiled exports in parallel
+	 *
+	 * @param pool pool used to draw the series and the tiles, or null to draw them sequentially
+	 */
+	public AWTBufferedGraphRenderer(ForkJoinPool pool) {
+		this(pool, null);
+	}
+
+	/**
+	 * Creates a renderer that takes its images, series layers and tiles from a {@link RasterPool}.
+	 * Images returned by this renderer should be released to the raster pool when they are not needed anymore
+	 *
+	 * @param pool pool used to draw the series and the tiles, or null to draw them sequentially
+	 * @param rasterPool pool of the allocated images, or null to allocate a new image every time
+	 */
+	public AWTBufferedGraphRenderer(ForkJoinPool pool, RasterPool rasterPool) {
+		this(pool, rasterPool, RenderListener.NONE);
+	}
+
+	/**
+	 * Creates a renderer that reports the timings and counters of each render to a listener.
+	 * Tiled renders report each tile as a separate render
+	 *
+	 * @param pool pool used to draw the series and the tiles, or null to draw them sequentially
+	 * @param rasterPool pool of the allocated images, or null to allocate a new image every time
+	 * @param listener listener notified with the timings and counters of each render
+	 */
+	public AWTBufferedGraphRenderer(ForkJoinPool pool, RasterPool rasterPool, RenderListener listener) {
+		this.pool = pool;
+		this.rasterPool = rasterPool;
+		this.listener = listener;
+	}
+
 	@Override
 	public BufferedImage renderGraph(Graph graph, GraphBounds bounds) {
-		BufferedImage image = new BufferedImage((int) bounds.maxX(),
-				(int) bounds.maxY(),
-				BufferedImage.TYPE_INT_ARGB
-		);
+		var recorder = RenderRecorder.start(listener, graph);
+		BufferedImage image = createImage(bounds);
 		Graphics2D graphics2D = image.createGraphics();
-		AWTGraphRenderer.renderGraph(graphics2D, graph, bounds);
+		try {
+			renderGraph(graphics2D, graph, GraphLayout.compute(graphics2D, graph, bounds, recorder), recorder);
+		} finally {
+			graphics2D.dispose();
+		}
+		RenderRecorder.complete(recorder, listener, graph);
+		return image;
+	}
+
+	/**
+	 * Renders the graph using a layout computed previously, skipping the measuring phase
+	 */
+	public BufferedImage renderGraph(Graph graph, GraphLayout layout) {
+		var recorder = RenderRecorder.start(listener, graph);
+		BufferedImage image = createImage(layout.bounds());
+		Graphics2D graphics2D = image.createGraphics();
+		try {
+			renderGraph(graphics2D, graph, layout, recorder);
+		} finally {
+			graphics2D.dispose();
+		}
+		RenderRecorder.complete(recorder, listener, graph);
+		return image;
+	}
+
+	/**
+	 * Renders the graph into an existing image. Only the pixels inside the bounds are overwritten
+	 *
+	 * @param target image that contains the bounds
+	 * @return the target image
+	 */
+	public BufferedImage renderGraph(Graph graph, GraphBounds bounds, BufferedImage target) {
+		checkTarget(bounds, target);
+		var recorder = RenderRecorder.start(listener, graph);
+		Graphics2D graphics2D = target.createGraphics();
+		try {
+			renderGraph(graphics2D, graph, GraphLayout.compute(graphics2D, graph, bounds, recorder), recorder);
+		} finally {
+			graphics2D.dispose();
+		}
+		RenderRecorder.complete(recorder, listener, graph);
+		return target;
+	}
+
+	/**
+	 * Renders the graph into an existing image using a layout computed previously.
+	 * Only the pixels inside the bounds of the layout are overwritten
+	 *
+	 * @param target image that contains the bounds of the layout
+	 * @return the target image
+	 */
+	public BufferedImage renderGraph(Graph graph, GraphLayout layout, BufferedImage target) {
+		checkTarget(layout.bounds(), target);
+		var recorder = RenderRecorder.start(listener, graph);
+		Graphics2D graphics2D = target.createGraphics();
+		try {
+			renderGraph(graphics2D, graph, layout, recorder);
+		} finally {
+			graphics2D.dispose();
+		}
+		RenderRecorder.complete(recorder, listener, graph);
+		return target;
+	}
+
+	private static void checkTarget(GraphBounds bounds, BufferedImage target) {
+		if (target.getWidth() < (int) bounds.maxX() || target.getHeight() < (int) bounds.maxY()) {
+			throw new IllegalArgumentException("The target image is smaller than the bounds");
+		}
+	}
+
+	/**
+	 * Renders many graphs with the same bounds on this renderer's pool, or on the common pool if it has none
+	 *
+	 * @see #renderAll(List, GraphBounds, Executor)
+	 */
+	@Override
+	public List<CompletableFuture<BufferedImage>> renderAll(List<Graph> graphs, GraphBounds bounds) {
+		return renderAll(graphs, bounds, pool != null ? pool : ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Renders many graphs with the same bounds on the specified executor.
+	 * Fonts, font metrics and strokes are derived once for each distinct {@link GraphStyle} and shared by all
+	 * the graphs that use it, text outlines are shared through {@link GlyphOutlineCache#DEFAULT}.
+	 * Each future completes as soon as its graph has been rendered, in any order
+	 *
+	 * @param executor executor that bounds the number of graphs rendered at the same time
+	 * @return one future for each graph, in the same order of the graphs
+	 */
+	@Override
+	public List<CompletableFuture<BufferedImage>> renderAll(List<Graph> graphs, GraphBounds bounds, Executor executor) {
+		var resourcesByStyle = new ConcurrentHashMap<GraphStyle, GraphStyleResources>();
+		var results = new ArrayList<CompletableFuture<BufferedImage>>(graphs.size());
+		for (Graph graph : graphs) {
+			results.add(CompletableFuture.supplyAsync(() -> {
+				var recorder = RenderRecorder.start(listener, graph);
+				BufferedImage image = createImage(bounds);
+				Graphics2D graphics2D = image.createGraphics();
+				try {
+					var resources = resourcesByStyle.computeIfAbsent(graph.style(),
+							style -> GraphStyleResources.compute(graphics2D, style)
+					);
+					var layout = GraphLayout.compute(graphics2D, graph, bounds, resources, recorder);
+					renderGraph(graphics2D, graph, layout, recorder);
+				} finally {
+					graphics2D.dispose();
+				}
+				RenderRecorder.complete(recorder, listener, graph);
+				return image;
+			}, executor));
+		}
+		return results;
+	}
+
+	/**
+	 * Renders a large image by splitting it in rectangular tiles that are rendered in parallel, directly into
+	 * the returned image, sharing a single layout
+	 */
+	public BufferedImage renderGraphTiled(Graph graph, GraphBounds bounds, int tileWidth, int tileHeight) {
+		checkTileSize(tileWidth, tileHeight);
+		BufferedImage image = createImage(bounds);
+		var layout = computeLayout(graph, bounds);
+		List<ForkJoinTask<?>> tiles = new ArrayList<>();
+		for (int tileY = 0; tileY < image.getHeight(); tileY += tileHeight) {
+			for (int tileX = 0; tileX < image.getWidth(); tileX += tileWidth) {
+				var tile = image.getSubimage(tileX,
+						tileY,
+						Math.min(tileWidth, image.getWidth() - tileX),
+						Math.min(tileHeight, image.getHeight() - tileY)
+				);
+				int offsetX = tileX;
+				int offsetY = tileY;
+				Runnable task = () -> renderTile(tile, offsetX, offsetY, graph, layout);
+				if (pool == null) {
+					task.run();
+				} else {
+					tiles.add(pool.submit(task));
+				}
+			}
+		}
+		for (ForkJoinTask<?> tile : tiles) {
+			join(tile);
+		}
+		return image;
+	}
+
+	/**
+	 * Renders the graph tile by tile without ever allocating the full image.
+	 * Tiles are rendered in parallel if this renderer has a pool, a bounded number at a time,
+	 * and they are passed to the sink in row-major order.
+	 * If this renderer has a raster pool, each tile is released to it after the sink returns
+	 */
+	public void renderGraphTiled(Graph graph, GraphBounds bounds, int tileWidth, int tileHeight, TileSink sink)
+			throws IOException {
+		checkTileSize(tileWidth, tileHeight);
+		int width = (int) bounds.maxX();
+		int height = (int) bounds.maxY();
+		var layout = computeLayout(graph, bounds);
+		int maxPending = pool == null ? 1 : pool.getParallelism() * 2;
+		ArrayDeque<PendingTile> pending = new ArrayDeque<>(maxPending);
+		try {
+			for (int tileY = 0; tileY < height; tileY += tileHeight) {
+				for (int tileX = 0; tileX < width; tileX += tileWidth) {
+					// Write the oldest tile before acquiring the next one, so at most maxPending tiles exist
+					if (pending.size() >= maxPending) {
+						writePendingTile(pending.removeFirst(), sink);
+					}
+					var tile = acquireImage(Math.min(tileWidth, width - tileX),
+							Math.min(tileHeight, height - tileY),
+							BufferedImage.TYPE_INT_ARGB,
+							bounds,
+							tileX,
+							tileY
+					);
+					int offsetX = tileX;
+					int offsetY = tileY;
+					if (pool == null) {
+						renderTile(tile, offsetX, offsetY, graph, layout);
+						sink.writeTile(offsetX, offsetY, tile);
+						releaseImage(tile);
+					} else {
+						var started = new AtomicBoolean();
+						pending.addLast(new PendingTile(offsetX, offsetY, tile, started, pool.submit(() -> {
+							if (started.compareAndSet(false, true)) {
+								renderTile(tile, offsetX, offsetY, graph, layout);
+							}
+						})));
+					}
+				}
+			}
+			while (!pending.isEmpty()) {
+				writePendingTile(pending.removeFirst(), sink);
+			}
+		} finally {
+			for (PendingTile pendingTile : pending) {
+				var task = pendingTile.task();
+				if (task.isDone() || pendingTile.started().compareAndSet(false, true)) {
+					// Nothing is drawing into the tile anymore
+					releaseImage(pendingTile.tile());
+				}
+				task.cancel(false);
+			}
+		}
+	}
+
+	private void writePendingTile(PendingTile pendingTile, TileSink sink) throws IOException {
+		try {
+			join(pendingTile.task());
+			sink.writeTile(pendingTile.x(), pendingTile.y(), pendingTile.tile());
+		} finally {
+			// Not if the join was interrupted while the task still draws into the tile
+			if (pendingTile.task().isDone()) {
+				releaseImage(pendingTile.tile());
+			}
+		}
+	}
+
+	private void renderTile(BufferedImage tile, int offsetX, int offsetY, Graph graph, GraphLayout layout) {
+		var tileGraphics2D = tile.createGraphics();
+		try {
+			tileGraphics2D.translate(-offsetX, -offsetY);
+			tileGraphics2D.clipRect(offsetX, offsetY, tile.getWidth(), tile.getHeight());
+			AWTGraphRenderer.renderGraph(tileGraphics2D, graph, layout, listener);
+		} finally {
+			tileGraphics2D.dispose();
+		}
+	}
+
+	private static void checkTileSize(int tileWidth, int tileHeight) {
+		if (tileWidth <= 0 || tileHeight <= 0) {
+			throw new IllegalArgumentException("Tile size must be greater than zero");
+		}
+	}
+
+	/**
+	 * Computes the layout with the same default font and font render context of a {@link BufferedImage} graphics
+	 */
+	private static GraphLayout computeLayout(Graph graph, GraphBounds bounds) {
+		var graphics2D = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+		try {
+			return GraphLayout.compute(graphics2D, graph, bounds);
+		} finally {
+			graphics2D.dispose();
+		}
+	}
+
+	private void renderGraph(Graphics2D graphics2D, Graph graph, GraphLayout layout, RenderRecorder recorder) {
+		if (pool == null || graph.data().series().size() < 2) {
+			AWTGraphRenderer.paintGraph(graphics2D, graph, layout, rasterPool, recorder);
+		} else {
+			renderGraphParallel(graphics2D, graph, layout, recorder);
+		}
+	}
+
+	private void renderGraphParallel(Graphics2D g2d, Graph graph, GraphLayout layout, RenderRecorder recorder) {
+		var graphics2D = (Graphics2D) g2d.create();
+		AWTGraphRenderer.setRenderingHints(graphics2D);
+		try {
+			if (!AWTGraphRenderer.renderFrame(graphics2D, graph, layout, recorder)) {
+				return;
+			}
+
+			var plotClip = AWTGraphRenderer.getPlotClip(layout);
+			int layerX = (int) Math.floor(plotClip.getMinX());
+			int layerY = (int) Math.floor(plotClip.getMinY());
+			int layerWidth = (int) Math.ceil(plotClip.getMaxX()) - layerX;
+			int layerHeight = (int) Math.ceil(plotClip.getMaxY()) - layerY;
+
+			int seriesCount = graph.data().series().size();
+			// At most one layer per thread of the pool is rendered while another one is composited,
+			// the next layers are submitted as the previous ones are released
+			int maxLayers = pool.getParallelism() + 1;
+			var layers = new ArrayList<ForkJoinTask<BufferedImage>>(seriesCount);
+			// Each layer has its own recorder, merged after the layer has been joined
+			var layerRecorders = new RenderRecorder[seriesCount];
+			IntFunction<ForkJoinTask<BufferedImage>> submitLayer = seriesIndex -> {
+				if (recorder != null) {
+					layerRecorders[seriesIndex] = new RenderRecorder();
+				}
+				return pool.submit(() -> {
+					var layer = acquireLayer(layerWidth, layerHeight);
+					var layerGraphics2D = layer.createGraphics();
+					try {
+						AWTGraphRenderer.setRenderingHints(layerGraphics2D);
+						layerGraphics2D.translate(-layerX, -layerY);
+						var seriesGraphics2D = AWTGraphRenderer.createPlotGraphics(layerGraphics2D, graph, layout);
+						try {
+							AWTGraphRenderer.renderSeries(seriesGraphics2D, graph, layout, seriesIndex, rasterPool,
+									layerRecorders[seriesIndex]
+							);
+						} finally {
+							seriesGraphics2D.dispose();
+						}
+					} finally {
+						layerGraphics2D.dispose();
+					}
+					return layer;
+				});
+			};
+			for (int i = 0; i < Math.min(seriesCount, maxLayers); i++) {
+				layers.add(submitLayer.apply(i));
+			}
+
+			int composited = 0;
+			var seriesGraphics2D = AWTGraphRenderer.createPlotGraphics(graphics2D, graph, layout);
+			try {
+				AWTGraphRenderer.renderZeroLines(seriesGraphics2D, graph, layout, recorder);
+				for (; composited < seriesCount; composited++) {
+					var layer = join(layers.get(composited));
+					try {
+						long compositeStart = RenderRecorder.now(recorder);
+						seriesGraphics2D.drawImage(layer, layerX, layerY, null);
+						if (recorder != null) {
+							recorder.phase(RenderPhase.COMPOSITE, compositeStart);
+							recorder.merge(layerRecorders[composited]);
+						}
+					} finally {
+						// Release the layer as soon as it has been composited
+						layers.set(composited, null);
+						releaseImage(layer);
+					}
+					if (layers.size() < seriesCount) {
+						layers.add(submitLayer.apply(layers.size()));
+					}
+				}
+			} finally {
+				seriesGraphics2D.dispose();
+				// After a failure, wait for the layers still being rendered and release them
+				for (int i = composited; i < layers.size(); i++) {
+					var layer = layers.get(i);
+					if (layer == null) {
+						continue;
+					}
+					layer.quietlyJoin();
+					if (layer.isCompletedNormally()) {
+						releaseImage(layer.getRawResult());
+					}
+				}
+			}
+
+			AWTGraphRenderer.renderLegend(graphics2D, graph, layout, recorder);
+		} finally {
+			graphics2D.dispose();
+		}
+	}
+
+	/**
+	 * @return a fully transparent layer
+	 */
+	private BufferedImage acquireLayer(int width, int height) {
+		if (rasterPool == null) {
+			return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+		}
+		var layer = rasterPool.acquire(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+		var graphics2D = layer.createGraphics();
+		try {
+			graphics2D.setComposite(AlphaComposite.Clear);
+			graphics2D.fillRect(0, 0, width, height);
+		} finally {
+			graphics2D.dispose();
+		}
+		return layer;
+	}
+
+	private static <T> T join(ForkJoinTask<T> task) {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while rendering", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw new IllegalStateException("Failed to render", e.getCause());
+		}
+	}
+
+	/**
+	 * @param started set by the task when it starts to render the tile, or when the tile is released without rendering
+	 */
+	private record PendingTile(int x, int y, BufferedImage tile, AtomicBoolean started, ForkJoinTask<?> task) {}
+
+	private BufferedImage createImage(GraphBounds bounds) {
+		return acquireImage((int) bounds.maxX(), (int) bounds.maxY(), BufferedImage.TYPE_INT_ARGB, bounds, 0, 0);
+	}
+
+	/**
+	 * Takes an image from the raster pool, or allocates it if this renderer has none.
+	 * Pooled images are cleared outside the bounds, the rendering overwrites the pixels inside them
+	 *
+	 * @param offsetX horizontal offset of the image inside the bounds coordinates
+	 * @param offsetY vertical offset of the image inside the bounds coordinates
+	 */
+	private BufferedImage acquireImage(int width, int height, int imageType, GraphBounds bounds, int offsetX, int offsetY) {
+		if (rasterPool == null) {
+			return new BufferedImage(width, height, imageType);
+		}
+		var image = rasterPool.acquire(width, height, imageType);
+		var imageRect = new Rectangle(offsetX, offsetY, width, height);
+		var boundsRect = new Rectangle((int) Math.floor(bounds.minX()),
+				(int) Math.floor(bounds.minY()),
+				(int) Math.ceil(bounds.width()),
+				(int) Math.ceil(bounds.height())
+		).intersection(imageRect);
+		if (!boundsRect.equals(imageRect)) {
+			var graphics2D = image.createGraphics();
+			try {
+				graphics2D.setComposite(AlphaComposite.Clear);
+				graphics2D.translate(-offsetX, -offsetY);
+				if (boundsRect.isEmpty()) {
+					graphics2D.fill(imageRect);
+				} else {
+					var outside = new Area(imageRect);
+					outside.subtract(new Area(boundsRect));
+					graphics2D.fill(outside);
+				}
+			} finally {
+				graphics2D.dispose();
+			}
+		}
 		return image;
 	}
 
+	private void releaseImage(BufferedImage image) {
+		if (rasterPool != null) {
+			rasterPool.release(image);
+		}
+	}
+
+	public interface TileSink {
+
+		/**
+		 * @param x horizontal offset of the tile in the full image
+		 * @param y vertical offset of the tile in the full image
+		 * @param tile the rendered tile
+		 */
+		void writeTile(int x, int y, BufferedImage tile) throws IOException;
+	}
 }
@@ -0,0 +1,42 @@
+package it.cavallium.jlinegraph;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+
+/**
+ * @param graphics2D graphics used to measure the derived fonts
+ */
+record AWTTextMetrics(Graphics2D graphics2D, Font font, FontMetrics fontMetrics) implements TextMetrics {
+
+	@Override
+	public float size() {
+		return font.getSize();
+	}
+
+	@Override
+	public int ascent() {
+		return fontMetrics.getAscent();
+	}
+
+	@Override
+	public int descent() {
+		return fontMetrics.getDescent();
+	}
+
+	@Override
+	public int height() {
+		return fontMetrics.getHeight();
+	}
+
+	@Override
+	public int stringWidth(String text) {
+		return fontMetrics.stringWidth(text);
+	}
+
+	@Override
+	public AWTTextMetrics deriveSize(float size) {
+		var derivedFont = font.deriveFont(size);
+		return new AWTTextMetrics(graphics2D, derivedFont, graphics2D.getFontMetrics(derivedFont));
+	}
+}
@@ -0,0 +1,77 @@
+package it.cavallium.jlinegraph;
+
+import java.util.Arrays;
+
+final class ArrayVertexColumns implements VertexColumns {
+
+	private final double[] xs;
+	private final double[] ys;
+	/**
+	 * Bounds of the vertices, computed at the first call of {@link #bounds()}
+	 */
+	private GraphBounds bounds;
+	/**
+	 * Whether the x coordinates are sorted, computed at the first call of {@link #isSortedByX()}
+	 */
+	private Boolean sortedByX;
+
+	ArrayVertexColumns(double[] xs, double[] ys) {
+		if (xs.length != ys.length) {
+			throw new IllegalArgumentException("xs and ys have different lengths");
+		}
+		this.xs = xs;
+		this.ys = ys;
+	}
+
+	@Override
+	public int size() {
+		return xs.length;
+	}
+
+	@Override
+	public double x(int index) {
+		return xs[index];
+	}
+
+	@Override
+	public double y(int index) {
+		return ys[index];
+	}
+
+	/**
+	 * Compares the coordinates, reading all of them
+	 */
+	@Override
+	public boolean equals(Object o) {
+		return this == o
+				|| (o instanceof ArrayVertexColumns other && Arrays.equals(xs, other.xs) && Arrays.equals(ys, other.ys));
+	}
+
+	/**
+	 * Hashes the coordinates, reading all of them
+	 */
+	@Override
+	public int hashCode() {
+		return 31 * Arrays.hashCode(xs) + Arrays.hashCode(ys);
+	}
+
+	@Override
+	public GraphBounds bounds() {
+		var bounds = this.bounds;
+		if (bounds == null) {
+			bounds = BoundsScanner.scan(xs, 0, ys, 0, xs.length);
+			this.bounds = bounds;
+		}
+		return bounds;
+	}
+
+	@Override
+	public boolean isSortedByX() {
+		var sortedByX = this.sortedByX;
+		if (sortedByX == null) {
+			sortedByX = VertexColumns.super.isSortedByX();
+			this.sortedByX = sortedByX;
+		}
+		return sortedByX;
+	}
+}
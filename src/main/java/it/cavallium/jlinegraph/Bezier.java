@@ -6,7 +6,6 @@ package it.cavallium.jlinegraph;
  * See LICENSE file in distribution for licensing details of this source file
  */
 
-import java.awt.Point;
 import java.awt.geom.Point2D;
 
 /**
@@ -45,49 +44,125 @@ public class Bezier {
 			// Cannot create bezier with less than 3 points
 			return;
 		}
-		bPoints = new Point[2 * (n - 2)];
-		double paX, paY;
-		double pbX = points[0].getX();
-		double pbY = points[0].getY();
-		double pcX = points[1].getX();
-		double pcY = points[1].getY();
-		for (int i = 0; i < n - 2; i++) {
-			paX = pbX;
-			paY = pbY;
-			pbX = pcX;
-			pbY = pcY;
-			pcX = points[i + 2].getX();
-			pcY = points[i + 2].getY();
-			double abX = pbX - paX;
-			double abY = pbY - paY;
-			double acX = pcX - paX;
-			double acY = pcY - paY;
-			double lac = Math.sqrt(acX * acX + acY * acY);
-			acX = acX /lac;
-			acY = acY /lac;
-
-			double proj = abX * acX + abY * acY;
-			proj = proj < 0 ? -proj : proj;
-			double apX = proj * acX;
-			double apY = proj * acY;
-
-			double p1X = pbX - AP * apX;
-			double p1Y = pbY - AP * apY;
-			bPoints[2 * i] = new Point((int) p1X, (int) p1Y);
-
-			acX = -acX;
-			acY = -acY;
-			double cbX = pbX - pcX;
-			double cbY = pbY - pcY;
-			proj = cbX * acX + cbY * acY;
-			proj = proj < 0 ? -proj : proj;
-			apX = proj * acX;
-			apY = proj * acY;
-
-			double p2X = pbX - AP * apX;
-			double p2Y = pbY - AP * apY;
-			bPoints[2 * i + 1] = new Point((int) p2X, (int) p2Y);
+		var xs = new double[n];
+		var ys = new double[n];
+		for (int i = 0; i < n; i++) {
+			xs[i] = points[i].getX();
+			ys[i] = points[i].getY();
 		}
+		var controlPoints = new double[4 * (n - 2)];
+		controlPoints(xs, ys, n, false, controlPoints);
+		bPoints = new Point2D[2 * (n - 2)];
+		for (int i = 0; i < bPoints.length; i++) {
+			bPoints[i] = new Point2D.Double(controlPoints[2 * i], controlPoints[2 * i + 1]);
+		}
+	}
+
+	/**
+	 * Computes the bezier points of the first points of the arrays, without creating objects.
+	 * A closed path is interpolated as if it was preceded by its second-last point and followed by its second point,
+	 * so it has 2 * size bezier points and a smooth join
+	 *
+	 * @param closed true if the last point is equal to the first one
+	 * @param controlPoints receives x and y of each bezier point, in the order of {@link #getPoints()}
+	 */
+	static void controlPoints(double[] xs, double[] ys, int size, boolean closed, double[] controlPoints) {
+		int count = closed ? size + 2 : size;
+		for (int i = 0; i < count - 2; i++) {
+			computeControlPoints(xs, ys, size, closed, i, controlPoints, 4 * i);
+		}
+	}
+
+	/**
+	 * Computes the control points of the curve through the first points of the arrays.
+	 * Each of the size - 1 segments gets x1, y1, x2 and y2 of a cubic curve from its first point to the next one.
+	 * The first and the last segment of an open curve are quadratic, with x2 and y2 equal to x1 and y1
+	 *
+	 * @param closed true if the last point is equal to the first one
+	 * @param controls receives the control points, at least 4 * (size - 1) long
+	 */
+	static void segmentControls(double[] xs, double[] ys, int size, boolean closed, double[] controls) {
+		if (!closed) {
+			// The bezier points before and after a point are the second control point of the segment that ends there
+			// and the first one of the segment that starts there
+			for (int i = 0; i < size - 2; i++) {
+				computeControlPoints(xs, ys, size, false, i, controls, 4 * i + 2);
+			}
+			int last = 4 * (size - 2);
+			controls[0] = controls[2];
+			controls[1] = controls[3];
+			controls[last + 2] = controls[last];
+			controls[last + 3] = controls[last + 1];
+			return;
+		}
+		var ends = new double[4];
+		computeControlPoints(xs, ys, size, true, 0, ends, 0);
+		controls[0] = ends[2];
+		controls[1] = ends[3];
+		for (int i = 1; i < size - 1; i++) {
+			computeControlPoints(xs, ys, size, true, i, controls, 4 * i - 2);
+		}
+		computeControlPoints(xs, ys, size, true, size - 1, ends, 0);
+		controls[4 * size - 6] = ends[0];
+		controls[4 * size - 5] = ends[1];
+	}
+
+	/**
+	 * @return the index in the arrays of a point of the interpolated sequence
+	 */
+	private static int pointIndex(int size, boolean closed, int index) {
+		if (!closed) {
+			return index;
+		} else if (index == 0) {
+			return size - 2;
+		} else if (index == size + 1) {
+			return 1;
+		} else {
+			return index - 1;
+		}
+	}
+
+	/**
+	 * Writes the two bezier points around the point at index + 1 of the interpolated sequence
+	 */
+	private static void computeControlPoints(double[] xs, double[] ys, int size, boolean closed, int index,
+			double[] controlPoints, int offset) {
+		int a = pointIndex(size, closed, index);
+		int b = pointIndex(size, closed, index + 1);
+		int c = pointIndex(size, closed, index + 2);
+		double paX = xs[a];
+		double paY = ys[a];
+		double pbX = xs[b];
+		double pbY = ys[b];
+		double pcX = xs[c];
+		double pcY = ys[c];
+		double abX = pbX - paX;
+		double abY = pbY - paY;
+		double acX = pcX - paX;
+		double acY = pcY - paY;
+		double lac = Math.sqrt(acX * acX + acY * acY);
+		acX = acX /lac;
+		acY = acY /lac;
+
+		double proj = abX * acX + abY * acY;
+		proj = proj < 0 ? -proj : proj;
+		double apX = proj * acX;
+		double apY = proj * acY;
+
+		controlPoints[offset] = pbX - AP * apX;
+		controlPoints[offset + 1] = pbY - AP * apY;
+
+		acX = -acX;
+		acY = -acY;
+		double cbX = pbX - pcX;
+		double cbY = pbY - pcY;
+		proj = cbX * acX + cbY * acY;
+		proj = proj < 0 ? -proj : proj;
+		apX = proj * acX;
+		apY = proj * acY;
+
+		controlPoints[offset + 2] = pbX - AP * apX;
+		controlPoints[offset + 3] = pbY - AP * apY;
 	}
 
 	/**
@@ -0,0 +1,118 @@
+package it.cavallium.jlinegraph;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Bounds of vertices stored in primitive arrays.
+ * <p>
+ * The arrays are read directly instead of through {@link VertexColumns}, and the arrays with at least
+ * {@link #PARALLEL_THRESHOLD} vertices are split among the threads of the common pool.
+ * Like {@link GraphBounds#fromVertexColumns(VertexColumns)}, NaN coordinates are ignored.
+ */
+final class BoundsScanner {
+
+	/**
+	 * Minimum number of vertices scanned in parallel
+	 */
+	static final int PARALLEL_THRESHOLD = 1 << 20;
+	/**
+	 * Number of vertices scanned by each task of a parallel scan
+	 */
+	private static final int PARALLEL_CHUNK = 1 << 18;
+
+	private BoundsScanner() {
+	}
+
+	/**
+	 * @return the bounds of the vertices, or an empty bounds if there are no vertices
+	 */
+	static GraphBounds scan(double[] xs, int xsOffset, double[] ys, int ysOffset, int size) {
+		if (size == 0) {
+			return GraphBounds.EMPTY;
+		}
+		double[] result;
+		if (size >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1) {
+			result = new ScanTask(xs, xsOffset, ys, ysOffset, 0, size).invoke();
+		} else {
+			result = new double[4];
+			scan(xs, xsOffset, ys, ysOffset, 0, size, result);
+		}
+		return new GraphBounds(result[0], result[1], result[2], result[3]);
+	}
+
+	/**
+	 * Writes minX, minY, maxX and maxY of the vertices from start to end into the result
+	 */
+	private static void scan(double[] xs, int xsOffset, double[] ys, int ysOffset, int start, int end,
+			double[] result) {
+		double minX = Double.MAX_VALUE;
+		double minY = Double.MAX_VALUE;
+		double maxX = -Double.MAX_VALUE;
+		double maxY = -Double.MAX_VALUE;
+		for (int i = start; i < end; i++) {
+			double x = xs[xsOffset + i];
+			double y = ys[ysOffset + i];
+			if (minX > x) {
+				minX = x;
+			}
+			if (maxX < x) {
+				maxX = x;
+			}
+			if (minY > y) {
+				minY = y;
+			}
+			if (maxY < y) {
+				maxY = y;
+			}
+		}
+		result[0] = minX;
+		result[1] = minY;
+		result[2] = maxX;
+		result[3] = maxY;
+	}
+
+	/**
+	 * Scan of a range of vertices, split in halves until the ranges are small enough
+	 */
+	@SuppressWarnings("serial")
+	private static final class ScanTask extends RecursiveTask<double[]> {
+
+		private final double[] xs;
+		private final int xsOffset;
+		private final double[] ys;
+		private final int ysOffset;
+		private final int start;
+		private final int end;
+
+		ScanTask(double[] xs, int xsOffset, double[] ys, int ysOffset, int start, int end) {
+			this.xs = xs;
+			this.xsOffset = xsOffset;
+			this.ys = ys;
+			this.ysOffset = ysOffset;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected double[] compute() {
+			if (end - start <= PARALLEL_CHUNK) {
+				var result = new double[4];
+				scan(xs, xsOffset, ys, ysOffset, start, end, result);
+				return result;
+			}
+			int middle = (start + end) >>> 1;
+			var left = new ScanTask(xs, xsOffset, ys, ysOffset, start, middle);
+			var right = new ScanTask(xs, xsOffset, ys, ysOffset, middle, end);
+			ForkJoinTask.invokeAll(left, right);
+			var result = left.join();
+			var rightResult = right.join();
+			result[0] = Math.min(result[0], rightResult[0]);
+			result[1] = Math.min(result[1], rightResult[1]);
+			result[2] = Math.max(result[2], rightResult[2]);
+			result[3] = Math.max(result[3], rightResult[3]);
+			return result;
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package it.cavallium.jlinegraph;
+
+import java.nio.DoubleBuffer;
+
+final class BufferVertexColumns implements VertexColumns {
+
+	private final DoubleBuffer xs;
+	private final DoubleBuffer ys;
+	/**
+	 * Bounds of the vertices, computed at the first call of {@link #bounds()}
+	 */
+	private GraphBounds bounds;
+	/**
+	 * Whether the x coordinates are sorted, computed at the first call of {@link #isSortedByX()}
+	 */
+	private Boolean sortedByX;
+
+	BufferVertexColumns(DoubleBuffer xs, DoubleBuffer ys) {
+		if (xs.remaining() != ys.remaining()) {
+			throw new IllegalArgumentException("xs and ys have different lengths");
+		}
+		this.xs = xs.slice();
+		this.ys = ys.slice();
+	}
+
+	@Override
+	public int size() {
+		return xs.limit();
+	}
+
+	@Override
+	public double x(int index) {
+		return xs.get(index);
+	}
+
+	@Override
+	public double y(int index) {
+		return ys.get(index);
+	}
+
+	@Override
+	public GraphBounds bounds() {
+		var bounds = this.bounds;
+		if (bounds == null) {
+			if (xs.hasArray() && ys.hasArray()) {
+				bounds = BoundsScanner.scan(xs.array(), xs.arrayOffset(), ys.array(), ys.arrayOffset(), xs.limit());
+			} else {
+				bounds = GraphBounds.fromVertexColumns(this);
+			}
+			this.bounds = bounds;
+		}
+		return bounds;
+	}
+
+	@Override
+	public boolean isSortedByX() {
+		var sortedByX = this.sortedByX;
+		if (sortedByX == null) {
+			sortedByX = VertexColumns.super.isSortedByX();
+			this.sortedByX = sortedByX;
+		}
+		return sortedByX;
+	}
+}
@@ -0,0 +1,67 @@
+package it.cavallium.jlinegraph;
+
+import java.util.function.Function;
+
+/**
+ * Value format of an axis that remembers the texts of the recently formatted values, so the layout doesn't box
+ * the tick values and doesn't build their texts again while the axes don't change.
+ * <p>
+ * Use it only with a pure format, that always returns the same text for the same value: a format that depends
+ * on the locale, on the time or on another mutable state would keep showing its old texts.
+ * The texts are kept by this instance, so they are discarded together with it.
+ *
+ * <pre>{@code
+ * new GraphAxisStyle("X axis", true, AxisMode.SHOW_WITH_VALUES, CachedValueFormat.of("%.2fs"::formatted));
+ * }</pre>
+ */
+public final class CachedValueFormat implements Function<Number, String> {
+
+	/**
+	 * Number of texts kept, a power of two
+	 */
+	private static final int CACHE_SIZE = 256;
+
+	private final Function<Number, String> format;
+	/**
+	 * Recently formatted values, indexed by the hash of the value. Entries are immutable,
+	 * so they can be replaced by any thread without locking
+	 */
+	private final Text[] texts = new Text[CACHE_SIZE];
+
+	private CachedValueFormat(Function<Number, String> format) {
+		this.format = format;
+	}
+
+	/**
+	 * @param format a pure format, that always returns the same text for the same value
+	 */
+	public static CachedValueFormat of(Function<Number, String> format) {
+		if (format instanceof CachedValueFormat cachedValueFormat) {
+			return cachedValueFormat;
+		}
+		return new CachedValueFormat(format);
+	}
+
+	@Override
+	public String apply(Number value) {
+		return format.apply(value);
+	}
+
+	/**
+	 * @return the text of the value, formatted again only if it's not among the recent ones
+	 */
+	String format(double value) {
+		long bits = Double.doubleToLongBits(value);
+		int hash = (int) (bits ^ (bits >>> 32));
+		int index = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+		var cached = texts[index];
+		if (cached != null && cached.bits == bits) {
+			return cached.text;
+		}
+		var text = format.apply(value);
+		texts[index] = new Text(bits, text);
+		return text;
+	}
+
+	private record Text(long bits, String text) {}
+}
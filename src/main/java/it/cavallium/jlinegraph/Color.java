@@ -22,6 +22,16 @@ public record Color(float red, float green, float blue, float alpha) {
 		return new Color(col.getRed() / 255f, col.getGreen() / 255f, col.getBlue() / 255f, 1);
 	}
 
+	/**
+	 * @return the color packed in a non-premultiplied ARGB int, rounded like {@link #toColor()}
+	 */
+	public int toARGB() {
+		return ((int) (alpha * 255 + 0.5f) << 24)
+				| ((int) (red * 255 + 0.5f) << 16)
+				| ((int) (green * 255 + 0.5f) << 8)
+				| (int) (blue * 255 + 0.5f);
+	}
+
 	public java.awt.Color toColor() {
 		return new java.awt.Color(red, green, blue, alpha);
 	}
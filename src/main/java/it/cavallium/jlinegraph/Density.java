@@ -0,0 +1,21 @@
+package it.cavallium.jlinegraph;
+
+/**
+ * Rendering of a series as the number of vertices that fall in each pixel of the plot,
+ * instead of its points, line and area. Suited for series with many more vertices than pixels
+ */
+public enum Density {
+	/**
+	 * Draw the points, the line and the area of the series
+	 */
+	NONE,
+	/**
+	 * Paint each pixel with the color of the series, more opaque where there are more vertices
+	 */
+	OPACITY,
+	/**
+	 * Paint each pixel with a color that goes from the color of the series, where there is one vertex,
+	 * to the foreground color of the graph, where there are the most vertices
+	 */
+	RAMP
+}
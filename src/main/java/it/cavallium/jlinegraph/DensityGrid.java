@@ -0,0 +1,167 @@
+package it.cavallium.jlinegraph;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Grid of pixels covering the plot area, that counts the vertices of a series falling in each pixel
+ * and then maps the counts to colors, for {@link Density}.
+ * <p>
+ * The series with at least {@link #PARALLEL_THRESHOLD} vertices are split among the threads of the common pool,
+ * each one counting into its own grid, and the grids are summed at the end.
+ *
+ * @param x raster x coordinate of the first column of the grid
+ * @param y raster y coordinate of the first row of the grid
+ */
+record DensityGrid(int x, int y, int width, int height) {
+
+	/**
+	 * Minimum number of vertices counted in parallel
+	 */
+	static final int PARALLEL_THRESHOLD = 1 << 18;
+
+	/**
+	 * @return the grid of the whole pixels touched by the plot area
+	 */
+	static DensityGrid of(RasterSize graphOffset, RasterSize graphSize) {
+		int x = (int) Math.floor(graphOffset.width());
+		int y = (int) Math.floor(graphOffset.height());
+		int width = Math.max(0, (int) Math.ceil(graphOffset.width() + graphSize.width()) - x);
+		int height = Math.max(0, (int) Math.ceil(graphOffset.height() + graphSize.height()) - y);
+		return new DensityGrid(x, y, width, height);
+	}
+
+	int length() {
+		return width * height;
+	}
+
+	/**
+	 * Adds the vertices at the start of the arrays to the counts, ignoring the ones outside the grid
+	 *
+	 * @param xs raster x coordinates
+	 * @param ys raster y coordinates
+	 * @param counts counts of the pixels in row-major order, {@link #width()} per row
+	 * @return the maximum count
+	 */
+	int count(double[] xs, double[] ys, int size, int[] counts) {
+		int parallelism = ForkJoinPool.getCommonPoolParallelism();
+		if (size >= PARALLEL_THRESHOLD && parallelism > 1) {
+			new CountTask(this, xs, ys, 0, size, Math.min(parallelism, size / (PARALLEL_THRESHOLD / 4)), counts).invoke();
+		} else {
+			count(xs, ys, 0, size, counts);
+		}
+		int max = 0;
+		int length = length();
+		for (int i = 0; i < length; i++) {
+			max = Math.max(max, counts[i]);
+		}
+		return max;
+	}
+
+	private void count(double[] xs, double[] ys, int start, int end, int[] counts) {
+		for (int i = start; i < end; i++) {
+			double column = xs[i] - x;
+			double row = ys[i] - y;
+			// NaN coordinates fail the comparisons too
+			if (column >= 0d && column < width && row >= 0d && row < height) {
+				counts[(int) row * width + (int) column]++;
+			}
+		}
+	}
+
+	/**
+	 * Replaces each count with its non-premultiplied ARGB color, or with 0 if it's zero.
+	 * The counts are mapped on a logarithmic scale, so that sparse pixels stay visible next to dense ones
+	 *
+	 * @param maxCount maximum count of the grid
+	 * @param color color of the series
+	 * @param foreground color of the densest pixels of {@link Density#RAMP}
+	 */
+	void toARGB(int[] counts, int maxCount, Density density, Color color, Color foreground) {
+		if (density == Density.NONE) {
+			throw new IllegalArgumentException("No density");
+		}
+		int length = length();
+		if (density == Density.OPACITY) {
+			int rgb = color.toARGB() & 0xFFFFFF;
+			double scale = color.alpha() * 255d / Math.log1p(maxCount);
+			for (int i = 0; i < length; i++) {
+				int count = counts[i];
+				if (count != 0) {
+					counts[i] = ((int) (Math.log1p(count) * scale + 0.5d) << 24) | rgb;
+				}
+			}
+		} else {
+			int from = color.toARGB();
+			int to = foreground.toARGB();
+			double scale = maxCount > 1 ? 256d / Math.log(maxCount) : 0d;
+			for (int i = 0; i < length; i++) {
+				int count = counts[i];
+				if (count != 0) {
+					counts[i] = interpolate(from, to, Math.min(256, (int) (Math.log(count) * scale + 0.5d)));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param weight weight of the second color, from 0 to 256
+	 */
+	private static int interpolate(int from, int to, int weight) {
+		int inverse = 256 - weight;
+		return ((((from >>> 24) * inverse + (to >>> 24) * weight) >>> 8) << 24)
+				| (((((from >>> 16) & 0xFF) * inverse + ((to >>> 16) & 0xFF) * weight) >>> 8) << 16)
+				| (((((from >>> 8) & 0xFF) * inverse + ((to >>> 8) & 0xFF) * weight) >>> 8) << 8)
+				| (((from & 0xFF) * inverse + (to & 0xFF) * weight) >>> 8);
+	}
+
+	/**
+	 * Count of a range of vertices, split among the specified number of grids
+	 */
+	@SuppressWarnings("serial")
+	private static final class CountTask extends RecursiveTask<int[]> {
+
+		private final DensityGrid grid;
+		private final double[] xs;
+		private final double[] ys;
+		private final int start;
+		private final int end;
+		private final int parts;
+		/**
+		 * Counts to add to, or null to count into a new grid
+		 */
+		private final int[] counts;
+
+		CountTask(DensityGrid grid, double[] xs, double[] ys, int start, int end, int parts, int[] counts) {
+			this.grid = grid;
+			this.xs = xs;
+			this.ys = ys;
+			this.start = start;
+			this.end = end;
+			this.parts = parts;
+			this.counts = counts;
+		}
+
+		@Override
+		protected int[] compute() {
+			if (parts <= 1) {
+				var result = counts != null ? counts : new int[grid.length()];
+				grid.count(xs, ys, start, end, result);
+				return result;
+			}
+			int leftParts = parts / 2;
+			int middle = (int) (start + (long) (end - start) * leftParts / parts);
+			var left = new CountTask(grid, xs, ys, start, middle, leftParts, counts);
+			var right = new CountTask(grid, xs, ys, middle, end, parts - leftParts, null);
+			ForkJoinTask.invokeAll(left, right);
+			var result = left.join();
+			var rightResult = right.join();
+			int length = grid.length();
+			for (int i = 0; i < length; i++) {
+				result[i] += rightResult[i];
+			}
+			return result;
+		}
+	}
+}
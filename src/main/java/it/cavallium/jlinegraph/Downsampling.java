@@ -0,0 +1,20 @@
+package it.cavallium.jlinegraph;
+
+/**
+ * Reduction applied to the vertices of a series before building its path
+ */
+public enum Downsampling {
+	/**
+	 * Draw every vertex
+	 */
+	NONE,
+	/**
+	 * Keep the first, last, minimum and maximum vertex of each pixel column
+	 */
+	MIN_MAX,
+	/**
+	 * Largest-Triangle-Three-Buckets, keeps about one vertex per pixel of plot width
+	 * while preserving the visual shape. Suited for smoothed series, applies also to non-function series
+	 */
+	LTTB
+}
@@ -0,0 +1,109 @@
+package it.cavallium.jlinegraph;
+
+import java.awt.Font;
+import java.awt.Shape;
+import java.awt.font.FontRenderContext;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded LRU cache of text outlines.
+ * <p>
+ * Outlines are laid out once per (font, text, font render context) and stored at the origin,
+ * callers translate them to the drawing position.
+ */
+public final class GlyphOutlineCache {
+
+	/**
+	 * Cache shared by all the renderers
+	 */
+	public static final GlyphOutlineCache DEFAULT = new GlyphOutlineCache(4096);
+
+	private final int maxEntries;
+	private final LinkedHashMap<Key, Shape> outlines;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * @param maxEntries maximum number of outlines kept, the least recently used one is removed above this size
+	 */
+	public GlyphOutlineCache(int maxEntries) {
+		if (maxEntries <= 0) {
+			throw new IllegalArgumentException("maxEntries must be greater than zero");
+		}
+		this.maxEntries = maxEntries;
+		this.outlines = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Shape> eldest) {
+				return size() > GlyphOutlineCache.this.maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * @return the outline of the text with its baseline starting at the origin. The returned shape is shared and must
+	 * not be modified
+	 */
+	public Shape getOutline(Font font, String text, FontRenderContext fontRenderContext) {
+		return getOutline(font, text, fontRenderContext, null);
+	}
+
+	/**
+	 * @param recorder recorder of the cache hits and misses, or null
+	 */
+	Shape getOutline(Font font, String text, FontRenderContext fontRenderContext, RenderRecorder recorder) {
+		var key = new Key(font, text, fontRenderContext);
+		Shape outline;
+		synchronized (outlines) {
+			outline = outlines.get(key);
+		}
+		if (outline != null) {
+			hits.increment();
+			if (recorder != null) {
+				recorder.glyphCacheHit();
+			}
+			return outline;
+		}
+		misses.increment();
+		if (recorder != null) {
+			recorder.glyphCacheMiss();
+		}
+		outline = font.createGlyphVector(fontRenderContext, text).getOutline();
+		synchronized (outlines) {
+			outlines.put(key, outline);
+		}
+		return outline;
+	}
+
+	public long hits() {
+		return hits.sum();
+	}
+
+	public long misses() {
+		return misses.sum();
+	}
+
+	public int size() {
+		synchronized (outlines) {
+			return outlines.size();
+		}
+	}
+
+	public int maxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * Removes all the outlines and resets the statistics
+	 */
+	public void clear() {
+		synchronized (outlines) {
+			outlines.clear();
+		}
+		hits.reset();
+		misses.reset();
+	}
+
+	private record Key(Font font, String text, FontRenderContext fontRenderContext) {}
+}
@@ -4,7 +4,7 @@ import java.util.List;
 
 public record GraphBounds(double minX, double minY, double maxX, double maxY) {
 
-	private static final GraphBounds EMPTY = new GraphBounds(0, 0, 0, 0);
+	static final GraphBounds EMPTY = new GraphBounds(0, 0, 0, 0);
 
 	public static GraphBounds fromRasterSize(RasterSize size) {
 		return fromRasterSize(RasterSize.EMPTY, size);
@@ -18,11 +18,30 @@ public record GraphBounds(double minX, double minY, double maxX, double maxY) {
 	public static GraphBounds fromSeriesData(List<SeriesData> seriesDataList,
 			boolean includeOriginX,
 			boolean includeOriginY) {
-		var merged = merge(seriesDataList
-				.stream()
-				.map(bound -> fromSeriesData(bound, includeOriginX, includeOriginY))
-				.toList());
-		return adjustZero(merged, includeOriginX, includeOriginY);
+		double minX = Double.MAX_VALUE;
+		double minY = Double.MAX_VALUE;
+		double maxX = -Double.MAX_VALUE;
+		double maxY = -Double.MAX_VALUE;
+		for (SeriesData seriesData : seriesDataList) {
+			var graphBounds = fromSeriesData(seriesData, includeOriginX, includeOriginY);
+			if (minX > graphBounds.minX()) {
+				minX = graphBounds.minX();
+			}
+			if (maxX < graphBounds.maxX()) {
+				maxX = graphBounds.maxX();
+			}
+			if (minY > graphBounds.minY()) {
+				minY = graphBounds.minY();
+			}
+			if (maxY < graphBounds.maxY()) {
+				maxY = graphBounds.maxY();
+			}
+		}
+		if (seriesDataList.isEmpty()) {
+			return adjustZero(EMPTY, includeOriginX, includeOriginY);
+		} else {
+			return adjustZero(new GraphBounds(minX, minY, maxX, maxY), includeOriginX, includeOriginY);
+		}
 	}
 
 	private static GraphBounds adjustZero(GraphBounds bounds, boolean showZeroX, boolean showZeroY) {
@@ -72,32 +91,45 @@ public record GraphBounds(double minX, double minY, double maxX, double maxY) {
 	}
 
 	public static GraphBounds fromSeriesData(SeriesData seriesData, boolean showZeroX, boolean showZeroY) {
+		var columns = seriesData.columns();
+		if (columns.size() == 0) {
+			return EMPTY;
+		} else {
+			return adjustZero(columns.bounds(), showZeroX, showZeroY);
+		}
+	}
+
+	/**
+	 * Scans all the vertices
+	 *
+	 * @return the bounds of the vertices, or an empty bounds if there are no vertices
+	 */
+	static GraphBounds fromVertexColumns(VertexColumns columns) {
 		double minX = Double.MAX_VALUE;
 		double minY = Double.MAX_VALUE;
 		double maxX = -Double.MAX_VALUE;
 		double maxY = -Double.MAX_VALUE;
-		boolean empty = true;
-		for (Vertex vertex : seriesData.vertices()) {
-			if (empty) {
-				empty = false;
+		int size = columns.size();
+		for (int i = 0; i < size; i++) {
+			double x = columns.x(i);
+			double y = columns.y(i);
+			if (minX > x) {
+				minX = x;
 			}
-			if (minX > vertex.x()) {
-				minX = vertex.x();
+			if (maxX < x) {
+				maxX = x;
 			}
-			if (maxX < vertex.x()) {
-				maxX = vertex.x();
+			if (minY > y) {
+				minY = y;
 			}
-			if (minY > vertex.y()) {
-				minY = vertex.y();
-			}
-			if (maxY < vertex.y()) {
-				maxY = vertex.y();
+			if (maxY < y) {
+				maxY = y;
 			}
 		}
-		if (empty) {
+		if (size == 0) {
 			return EMPTY;
 		} else {
-			return adjustZero(new GraphBounds(minX, minY, maxX, maxY), showZeroX, showZeroY);
+			return new GraphBounds(minX, minY, maxX, maxY);
 		}
 	}
 
@@ -0,0 +1,169 @@
+package it.cavallium.jlinegraph;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of the measuring phase of {@link AWTGraphRenderer}: fonts, plot rectangle, ticks, label positions
+ * and legend rectangle.
+ * <p>
+ * A layout depends only on the graph style, the raster bounds, the data bounds and the names shown in the legend,
+ * so it can be computed once and reused to paint the same graph many times, also with different renderers,
+ * as long as {@link #matches(Graph, GraphBounds)} is true and the target {@link Graphics2D} has the same
+ * default font and font render context.
+ *
+ * @param graphOffset top-left corner of the plot area
+ * @param graphSize size of the plot area, negative if the bounds are too small to contain it
+ * @param legendBounds raster bounds of the legend, null if the legend is hidden
+ */
+public record GraphLayout(GraphStyle style,
+													GraphStyleResources resources,
+													GraphBounds bounds,
+													GraphBounds dataBounds,
+													List<String> legendNames,
+													Font valuesFont,
+													FontMetrics valuesFontMetrics,
+													Font axisNameFont,
+													FontMetrics axisNameFontMetrics,
+													Font seriesNameFont,
+													FontMetrics seriesNameFontMetrics,
+													RasterSize graphOffset,
+													RasterSize graphSize,
+													RasterSize yAxisNameCenterOffset,
+													RasterSize xAxisNameCenterOffset,
+													RasterSize yValuesOffset,
+													RasterSize xValuesOffset,
+													double yValueLineOffset,
+													int yValueLineLength,
+													double xValueLineOffset,
+													int xValueLineLength,
+													RasterSize yLabelsAreaSize,
+													List<LabelWithOffset> xLabels,
+													List<LabelWithOffset> yLabels,
+													GraphBounds legendBounds) {
+
+	/**
+	 * Measures the graph using the default font and the font render context of the specified graphics
+	 */
+	public static GraphLayout compute(Graphics2D g2d, Graph graph, GraphBounds bounds) {
+		return compute(g2d, graph, bounds, (RenderRecorder) null);
+	}
+
+	/**
+	 * @param recorder recorder of the layout and labels phases, or null
+	 */
+	static GraphLayout compute(Graphics2D g2d, Graph graph, GraphBounds bounds, RenderRecorder recorder) {
+		long layoutStart = RenderRecorder.now(recorder);
+		var graphics2D = (Graphics2D) g2d.create();
+		try {
+			AWTGraphRenderer.setRenderingHints(graphics2D);
+			var resources = GraphStyleResources.computeWithHints(graphics2D, graph.style());
+			return computeWithHints(graphics2D, graph, bounds, resources, recorder);
+		} finally {
+			graphics2D.dispose();
+			if (recorder != null) {
+				recorder.phase(RenderPhase.LAYOUT, layoutStart);
+			}
+		}
+	}
+
+	/**
+	 * Measures the graph reusing fonts, metrics and strokes derived previously from the same style
+	 */
+	public static GraphLayout compute(Graphics2D g2d, Graph graph, GraphBounds bounds, GraphStyleResources resources) {
+		return compute(g2d, graph, bounds, resources, null);
+	}
+
+	/**
+	 * @param recorder recorder of the layout and labels phases, or null
+	 */
+	static GraphLayout compute(Graphics2D g2d, Graph graph, GraphBounds bounds, GraphStyleResources resources,
+			RenderRecorder recorder) {
+		if (!resources.style().equals(graph.style())) {
+			throw new IllegalArgumentException("The resources have been derived from a different style");
+		}
+		long layoutStart = RenderRecorder.now(recorder);
+		var graphics2D = (Graphics2D) g2d.create();
+		try {
+			AWTGraphRenderer.setRenderingHints(graphics2D);
+			return computeWithHints(graphics2D, graph, bounds, resources, recorder);
+		} finally {
+			graphics2D.dispose();
+			if (recorder != null) {
+				recorder.phase(RenderPhase.LAYOUT, layoutStart);
+			}
+		}
+	}
+
+	private static GraphLayout computeWithHints(Graphics2D graphics2D, Graph graph, GraphBounds bounds,
+			GraphStyleResources resources, RenderRecorder recorder) {
+		var geometry = LayoutGeometry.compute(graph,
+				bounds,
+				new AWTTextMetrics(graphics2D, resources.defaultFont(), resources.defaultFontMetrics()),
+				new AWTTextMetrics(graphics2D, resources.valuesFont(), resources.valuesFontMetrics()),
+				new AWTTextMetrics(graphics2D, resources.axisNameFont(), resources.axisNameFontMetrics()),
+				new AWTTextMetrics(graphics2D, resources.seriesNameFont(), resources.seriesNameFontMetrics()),
+				recorder
+		);
+		var seriesNameMetrics = (AWTTextMetrics) geometry.seriesNameMetrics();
+
+		return new GraphLayout(graph.style(),
+				resources,
+				bounds,
+				graph.data().bounds(),
+				getLegendNames(graph),
+				resources.valuesFont(),
+				resources.valuesFontMetrics(),
+				resources.axisNameFont(),
+				resources.axisNameFontMetrics(),
+				seriesNameMetrics != null ? seriesNameMetrics.font() : null,
+				seriesNameMetrics != null ? seriesNameMetrics.fontMetrics() : null,
+				geometry.graphOffset(),
+				geometry.graphSize(),
+				geometry.yAxisNameCenterOffset(),
+				geometry.xAxisNameCenterOffset(),
+				geometry.yValuesOffset(),
+				geometry.xValuesOffset(),
+				geometry.yValueLineOffset(),
+				geometry.yValueLineLength(),
+				geometry.xValueLineOffset(),
+				geometry.xValueLineLength(),
+				geometry.yLabelsAreaSize(),
+				geometry.xLabels(),
+				geometry.yLabels(),
+				geometry.legendBounds()
+		);
+	}
+
+	/**
+	 * @return true if this layout can be used to paint the specified graph inside the specified bounds
+	 */
+	public boolean matches(Graph graph, GraphBounds bounds) {
+		return this.bounds.equals(bounds)
+				&& this.dataBounds.equals(graph.data().bounds())
+				&& this.style.equals(graph.style())
+				&& this.legendNames.equals(getLegendNames(graph));
+	}
+
+	/**
+	 * @return true if the plot area is not empty
+	 */
+	public boolean hasPlotArea() {
+		return graphSize.width() >= 0 && graphSize.height() >= 0;
+	}
+
+	private static List<String> getLegendNames(Graph graph) {
+		var legendNames = new ArrayList<String>();
+		for (SeriesData series : graph.data().series()) {
+			if (series.showInLegend()) {
+				legendNames.add(series.name());
+			}
+		}
+		return legendNames;
+	}
+
+	public record LabelWithOffset(double value, double rasterOffset, String formattedText) {}
+}
@@ -0,0 +1,100 @@
+package it.cavallium.jlinegraph;
+
+import java.awt.BasicStroke;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fonts, font metrics and strokes derived from a {@link GraphStyle}.
+ * <p>
+ * They depend only on the style and on the default font and font render context of the target graphics,
+ * so they can be computed once and shared by all the graphs that have the same style, also across threads.
+ *
+ * @param seriesStrokes line stroke of each series style
+ * @param seriesPointsStrokes points stroke of each series style
+ */
+public record GraphStyleResources(GraphStyle style,
+																	Font defaultFont,
+																	FontMetrics defaultFontMetrics,
+																	Font valuesFont,
+																	FontMetrics valuesFontMetrics,
+																	Font axisNameFont,
+																	FontMetrics axisNameFontMetrics,
+																	Font seriesNameFont,
+																	FontMetrics seriesNameFontMetrics,
+																	BasicStroke defaultStroke,
+																	BasicStroke zeroLineStroke,
+																	BasicStroke legendStroke,
+																	List<BasicStroke> seriesStrokes,
+																	List<BasicStroke> seriesPointsStrokes) {
+
+	/**
+	 * Derives the resources using the default font and the font render context of the specified graphics
+	 */
+	public static GraphStyleResources compute(Graphics2D g2d, GraphStyle style) {
+		var graphics2D = (Graphics2D) g2d.create();
+		try {
+			AWTGraphRenderer.setRenderingHints(graphics2D);
+			return computeWithHints(graphics2D, style);
+		} finally {
+			graphics2D.dispose();
+		}
+	}
+
+	/**
+	 * @param graphics2D graphics that already has the rendering hints of {@link AWTGraphRenderer}
+	 */
+	static GraphStyleResources computeWithHints(Graphics2D graphics2D, GraphStyle style) {
+		Font defaultFont = graphics2D.getFont().deriveFont((float) style.fonts().global());
+		Font valuesFont = defaultFont.deriveFont((float) style.fonts().valueLabel());
+		Font axisNameFont = defaultFont.deriveFont((float) style.fonts().axisName());
+		Font seriesNameFont = defaultFont.deriveFont((float) style.fonts().seriesName());
+
+		var strokeWidth = style.strokeWidth();
+		var seriesStrokes = new ArrayList<BasicStroke>(style.seriesStyles().size());
+		var seriesPointsStrokes = new ArrayList<BasicStroke>(style.seriesStyles().size());
+		for (SeriesStyle seriesStyle : style.seriesStyles()) {
+			seriesStrokes.add(getSeriesStroke(seriesStyle, strokeWidth));
+			seriesPointsStrokes.add(getSeriesPointsStroke(seriesStyle, strokeWidth));
+		}
+
+		return new GraphStyleResources(style,
+				defaultFont,
+				graphics2D.getFontMetrics(defaultFont),
+				valuesFont,
+				graphics2D.getFontMetrics(valuesFont),
+				axisNameFont,
+				graphics2D.getFontMetrics(axisNameFont),
+				seriesNameFont,
+				graphics2D.getFontMetrics(seriesNameFont),
+				new BasicStroke((float) strokeWidth, BasicStroke.CAP_BUTT, BasicStroke.JOIN_ROUND, BasicStroke.JOIN_MITER),
+				new BasicStroke((float) strokeWidth,
+						BasicStroke.CAP_ROUND,
+						BasicStroke.JOIN_ROUND,
+						10.0f,
+						new float[]{2.0f, 3.0f},
+						0.0f
+				),
+				new BasicStroke((float) (strokeWidth * 2f), BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER),
+				List.copyOf(seriesStrokes),
+				List.copyOf(seriesPointsStrokes)
+		);
+	}
+
+	private static BasicStroke getSeriesStroke(SeriesStyle seriesStyle, double defaultStrokeWidth) {
+		return new BasicStroke((float) (defaultStrokeWidth * seriesStyle.lineWeight()),
+				BasicStroke.CAP_ROUND,
+				BasicStroke.JOIN_ROUND
+		);
+	}
+
+	private static BasicStroke getSeriesPointsStroke(SeriesStyle seriesStyle, double defaultStrokeWidth) {
+		return new BasicStroke((float) (defaultStrokeWidth * 2d * seriesStyle.pointsWeight()),
+				BasicStroke.CAP_ROUND,
+				BasicStroke.JOIN_ROUND
+		);
+	}
+}
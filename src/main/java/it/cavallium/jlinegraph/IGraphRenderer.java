@@ -1,6 +1,35 @@
 package it.cavallium.jlinegraph;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
 public interface IGraphRenderer<T> {
 
 	T renderGraph(Graph graph, GraphBounds bounds);
+
+	/**
+	 * Renders many graphs with the same bounds on the common pool
+	 *
+	 * @see #renderAll(List, GraphBounds, Executor)
+	 */
+	default List<CompletableFuture<T>> renderAll(List<Graph> graphs, GraphBounds bounds) {
+		return renderAll(graphs, bounds, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Renders many graphs with the same bounds on the specified executor.
+	 * Each future completes as soon as its graph has been rendered, in any order
+	 *
+	 * @return one future for each graph, in the same order of the graphs
+	 */
+	default List<CompletableFuture<T>> renderAll(List<Graph> graphs, GraphBounds bounds, Executor executor) {
+		var results = new ArrayList<CompletableFuture<T>>(graphs.size());
+		for (Graph graph : graphs) {
+			results.add(CompletableFuture.supplyAsync(() -> renderGraph(graph, bounds), executor));
+		}
+		return results;
+	}
 }
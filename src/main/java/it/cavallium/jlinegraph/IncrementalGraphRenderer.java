@@ -0,0 +1,307 @@
+package it.cavallium.jlinegraph;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Renders a live graph into its own image, redrawing only the plot columns that changed since the previous render.
+ * <p>
+ * Background, borders, axis names, value labels and zero lines are drawn once into a cached background layer.
+ * When the layout is still valid (same style, bounds, data bounds and legend names) and the series only received
+ * new vertices at their end, the renderer copies the background back into the columns spanned by the new vertices
+ * and redraws there only the vertices of each series that reach those columns, then the legend.
+ * Any other change redraws the whole image.
+ * <p>
+ * A series is considered appended to when its first vertex and the last vertex drawn previously are unchanged.
+ * Only functions whose vertices are sorted by x are redrawn partially, other series are redrawn whole
+ * inside the dirty columns, and any change to them redraws the whole image. The same happens for series
+ * downsampled with {@link Downsampling#LTTB} or drawn with a {@link Density}, because they depend on all the vertices.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class IncrementalGraphRenderer {
+
+	private final GraphBounds bounds;
+	private final RenderListener listener;
+	private final BufferedImage image;
+	private final BufferedImage background;
+	private GraphLayout layout;
+	private DrawnSeries[] drawnSeries;
+	private Rectangle dirtyRegion = new Rectangle();
+
+	/**
+	 * @param bounds bounds of the graph. The image goes from the origin to their bottom-right corner
+	 */
+	public IncrementalGraphRenderer(GraphBounds bounds) {
+		this(bounds, RenderListener.NONE);
+	}
+
+	/**
+	 * @param bounds bounds of the graph. The image goes from the origin to their bottom-right corner
+	 * @param listener listener notified with the timings and counters of each render, full or incremental
+	 */
+	public IncrementalGraphRenderer(GraphBounds bounds, RenderListener listener) {
+		int width = (int) bounds.maxX();
+		int height = (int) bounds.maxY();
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("Invalid bounds: " + bounds);
+		}
+		this.bounds = bounds;
+		this.listener = listener;
+		this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		this.background = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+	}
+
+	/**
+	 * Updates the image with the current state of the graph
+	 *
+	 * @return the image of this renderer, the same one at every render
+	 */
+	public BufferedImage render(Graph graph) {
+		var recorder = RenderRecorder.start(listener, graph);
+		if (!renderIncrementally(graph, recorder)) {
+			renderFully(graph, recorder);
+		}
+		RenderRecorder.complete(recorder, listener, graph);
+		return image;
+	}
+
+	/**
+	 * Forces the next render to redraw the whole image
+	 */
+	public void invalidate() {
+		layout = null;
+		drawnSeries = null;
+	}
+
+	public BufferedImage image() {
+		return image;
+	}
+
+	public GraphBounds bounds() {
+		return bounds;
+	}
+
+	/**
+	 * @return the region of the image changed by the last render, empty if nothing changed
+	 */
+	public Rectangle dirtyRegion() {
+		return new Rectangle(dirtyRegion);
+	}
+
+	private void renderFully(Graph graph, RenderRecorder recorder) {
+		var backgroundGraphics = background.createGraphics();
+		try {
+			if (layout != null && layout.style().equals(graph.style())) {
+				layout = GraphLayout.compute(backgroundGraphics, graph, bounds, layout.resources(), recorder);
+			} else {
+				layout = GraphLayout.compute(backgroundGraphics, graph, bounds, recorder);
+			}
+			AWTGraphRenderer.setRenderingHints(backgroundGraphics);
+			if (AWTGraphRenderer.renderFrame(backgroundGraphics, graph, layout, recorder)) {
+				var plotGraphics = AWTGraphRenderer.createPlotGraphics(backgroundGraphics, graph, layout);
+				try {
+					AWTGraphRenderer.renderZeroLines(plotGraphics, graph, layout, recorder);
+				} finally {
+					plotGraphics.dispose();
+				}
+			}
+		} finally {
+			backgroundGraphics.dispose();
+		}
+		var seriesList = graph.data().series();
+		drawnSeries = new DrawnSeries[seriesList.size()];
+		for (int i = 0; i < drawnSeries.length; i++) {
+			drawnSeries[i] = DrawnSeries.of(seriesList.get(i));
+		}
+		var region = new Rectangle(0, 0, image.getWidth(), image.getHeight());
+		restoreBackground(region, recorder);
+		if (layout.hasPlotArea()) {
+			paintSeriesAndLegend(graph, region, false, 0d, recorder);
+		}
+		dirtyRegion = region;
+	}
+
+	/**
+	 * @return false if the graph changed in a way that needs a full render
+	 */
+	private boolean renderIncrementally(Graph graph, RenderRecorder recorder) {
+		if (layout == null
+				|| !layout.matches(graph, bounds)
+				|| !layout.hasPlotArea()
+				|| layout.graphSize().width() <= 0
+				|| !(layout.dataBounds().maxX() > layout.dataBounds().minX())) {
+			return false;
+		}
+		var seriesList = graph.data().series();
+		var styles = graph.style().seriesStyles();
+		if (seriesList.size() != drawnSeries.length || styles.isEmpty()) {
+			return false;
+		}
+		double dirtyMinX = Double.POSITIVE_INFINITY;
+		double dirtyMaxX = Double.NEGATIVE_INFINITY;
+		var updatedSeries = new DrawnSeries[drawnSeries.length];
+		for (int i = 0; i < drawnSeries.length; i++) {
+			var series = seriesList.get(i);
+			var drawn = drawnSeries[i];
+			var columns = series.columns();
+			int size = columns.size();
+			if (series.isFunction() != drawn.isFunction() || size < drawn.size() || !drawn.isPrefixOf(columns)) {
+				return false;
+			}
+			updatedSeries[i] = drawn;
+			if (size == drawn.size()) {
+				continue;
+			}
+			if (!drawn.isFunction()
+					|| !drawn.sorted()
+					|| styles.get(i % styles.size()).downsampling() == Downsampling.LTTB
+					|| styles.get(i % styles.size()).density() != Density.NONE) {
+				return false;
+			}
+			double previousX = drawn.size() > 0 ? drawn.lastX() : Double.NEGATIVE_INFINITY;
+			for (int j = drawn.size(); j < size; j++) {
+				double x = columns.x(j);
+				if (!(x >= previousX)) {
+					return false;
+				}
+				previousX = x;
+			}
+			// Appending a vertex changes the curve of a smoothed function up to the second-last vertex drawn
+			dirtyMinX = Math.min(dirtyMinX, columns.x(Math.max(0, drawn.size() - 2)));
+			dirtyMaxX = Math.max(dirtyMaxX, columns.x(size - 1));
+			updatedSeries[i] = DrawnSeries.appended(drawn, columns);
+		}
+		drawnSeries = updatedSeries;
+
+		var region = new Rectangle();
+		if (dirtyMinX <= dirtyMaxX) {
+			double margin = SeriesRanges.strokeMargin(graph, layout);
+			var plotClip = AWTGraphRenderer.getPlotClip(layout).getBounds()
+					.intersection(new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+			int minX = (int) Math.floor(toRasterX(dirtyMinX) - margin);
+			int maxX = (int) Math.ceil(toRasterX(dirtyMaxX) + margin);
+			region = plotClip.intersection(new Rectangle(minX, plotClip.y, maxX - minX, plotClip.height));
+			if (!region.isEmpty()) {
+				restoreBackground(region, recorder);
+				paintSeriesAndLegend(graph, region, true, margin, recorder);
+			}
+		}
+		dirtyRegion = region.isEmpty() ? new Rectangle() : region;
+		return true;
+	}
+
+	/**
+	 * Draws the series and the legend over the background, clipped to the region
+	 *
+	 * @param partial true to draw only the vertices of the sorted functions that reach the region
+	 * @param margin distance from the region of the farthest pixel drawn by a vertex
+	 */
+	private void paintSeriesAndLegend(Graph graph, Rectangle region, boolean partial, double margin,
+			RenderRecorder recorder) {
+		var graphics2D = image.createGraphics();
+		try {
+			AWTGraphRenderer.setRenderingHints(graphics2D);
+			graphics2D.clip(region);
+			var seriesGraphics2D = AWTGraphRenderer.createPlotGraphics(graphics2D, graph, layout);
+			try {
+				var seriesList = graph.data().series();
+				for (int i = 0; i < seriesList.size(); i++) {
+					var series = seriesList.get(i);
+					if (partial) {
+						series = getVisibleRange(graph, i, region, margin);
+					}
+					AWTGraphRenderer.renderSeries(seriesGraphics2D, graph, layout, i, series, null, recorder);
+				}
+			} finally {
+				seriesGraphics2D.dispose();
+			}
+			var legendBounds = layout.legendBounds();
+			if (legendBounds != null && legendBounds.maxX() >= region.x && legendBounds.minX() <= region.getMaxX()) {
+				AWTGraphRenderer.renderLegend(graphics2D, graph, layout, recorder);
+			}
+		} finally {
+			graphics2D.dispose();
+		}
+	}
+
+	/**
+	 * @return the vertices of the series that can draw inside the region, or the whole series if it's not
+	 * a sorted function or if it's drawn depending on all its vertices
+	 */
+	private SeriesData getVisibleRange(Graph graph, int seriesIndex, Rectangle region, double margin) {
+		var series = graph.data().series().get(seriesIndex);
+		var styles = graph.style().seriesStyles();
+		if (!drawnSeries[seriesIndex].sorted()
+				|| styles.get(seriesIndex % styles.size()).downsampling() == Downsampling.LTTB
+				|| styles.get(seriesIndex % styles.size()).density() != Density.NONE) {
+			return series;
+		}
+		return SeriesRanges.visibleRange(series, toDataX(region.x - margin), toDataX(region.getMaxX() + margin));
+	}
+
+	private void restoreBackground(Rectangle region, RenderRecorder recorder) {
+		long frameStart = RenderRecorder.now(recorder);
+		int[] source = ((DataBufferInt) background.getRaster().getDataBuffer()).getData();
+		int[] target = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		int width = image.getWidth();
+		for (int y = region.y; y < region.y + region.height; y++) {
+			System.arraycopy(source, y * width + region.x, target, y * width + region.x, region.width);
+		}
+		if (recorder != null) {
+			recorder.phase(RenderPhase.FRAME, frameStart);
+		}
+	}
+
+	private double toRasterX(double x) {
+		var dataBounds = layout.dataBounds();
+		return layout.graphOffset().width()
+				+ ((x - dataBounds.minX()) / (dataBounds.maxX() - dataBounds.minX())) * layout.graphSize().width();
+	}
+
+	private double toDataX(double rasterX) {
+		var dataBounds = layout.dataBounds();
+		return dataBounds.minX()
+				+ (rasterX - layout.graphOffset().width()) / layout.graphSize().width() * (dataBounds.maxX() - dataBounds.minX());
+	}
+
+	/**
+	 * State of a series at the time it was drawn
+	 *
+	 * @param sorted true if the series is a function and its vertices are sorted by x
+	 */
+	private record DrawnSeries(int size, boolean isFunction, boolean sorted, double firstX, double firstY,
+														 double lastX, double lastY) {
+
+		static DrawnSeries of(SeriesData series) {
+			var columns = series.columns();
+			int size = columns.size();
+			boolean sorted = series.isFunction() && columns.isSortedByX();
+			if (size == 0) {
+				return new DrawnSeries(0, series.isFunction(), sorted, 0d, 0d, 0d, 0d);
+			}
+			return new DrawnSeries(size, series.isFunction(), sorted,
+					columns.x(0), columns.y(0), columns.x(size - 1), columns.y(size - 1));
+		}
+
+		static DrawnSeries appended(DrawnSeries drawn, VertexColumns columns) {
+			int size = columns.size();
+			return new DrawnSeries(size, drawn.isFunction, drawn.sorted,
+					columns.x(0), columns.y(0), columns.x(size - 1), columns.y(size - 1));
+		}
+
+		/**
+		 * @return true if the columns still start with the vertices drawn
+		 */
+		boolean isPrefixOf(VertexColumns columns) {
+			if (size == 0) {
+				return true;
+			}
+			return Double.compare(columns.x(0), firstX) == 0
+					&& Double.compare(columns.y(0), firstY) == 0
+					&& Double.compare(columns.x(size - 1), lastX) == 0
+					&& Double.compare(columns.y(size - 1), lastY) == 0;
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package it.cavallium.jlinegraph;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Emits a {@code it.cavallium.jlinegraph.Render} JDK Flight Recorder event for each render, with the duration
+ * of each phase and the counters of {@link RenderStats}. When the event is not enabled in the recording
+ * the cost is the creation of an empty event per render
+ */
+public final class JfrRenderListener implements RenderListener {
+
+	public static final JfrRenderListener INSTANCE = new JfrRenderListener();
+
+	private final ThreadLocal<RenderEvent> events = new ThreadLocal<>();
+
+	private JfrRenderListener() {
+	}
+
+	@Override
+	public void renderStarted(Graph graph) {
+		var event = new RenderEvent();
+		if (event.isEnabled()) {
+			event.begin();
+			events.set(event);
+		}
+	}
+
+	@Override
+	public void renderCompleted(Graph graph, RenderStats stats) {
+		var event = events.get();
+		if (event == null) {
+			return;
+		}
+		events.remove();
+		event.end();
+		if (event.shouldCommit()) {
+			event.graphName = graph.name();
+			event.layout = stats.layoutNanos();
+			event.labels = stats.labelsNanos();
+			event.frame = stats.frameNanos();
+			event.seriesPath = stats.seriesPathNanos();
+			event.seriesPaint = stats.seriesPaintNanos();
+			event.composite = stats.compositeNanos();
+			event.legend = stats.legendNanos();
+			event.seriesCount = stats.seriesCount();
+			event.verticesIn = stats.verticesIn();
+			event.verticesOut = stats.verticesOut();
+			event.pathSegments = stats.pathSegments();
+			event.markers = stats.markers();
+			event.glyphsDrawn = stats.glyphsDrawn();
+			event.glyphCacheHits = stats.glyphCacheHits();
+			event.glyphCacheMisses = stats.glyphCacheMisses();
+			event.commit();
+		}
+	}
+
+	@Name("it.cavallium.jlinegraph.Render")
+	@Label("Graph Render")
+	@Category("JLineGraph")
+	@Description("Rendering of a graph")
+	@StackTrace(false)
+	static final class RenderEvent extends Event {
+
+		@Label("Graph Name")
+		String graphName;
+
+		@Label("Layout")
+		@Timespan(Timespan.NANOSECONDS)
+		long layout;
+
+		@Label("Labels")
+		@Timespan(Timespan.NANOSECONDS)
+		long labels;
+
+		@Label("Frame")
+		@Timespan(Timespan.NANOSECONDS)
+		long frame;
+
+		@Label("Series Path")
+		@Timespan(Timespan.NANOSECONDS)
+		long seriesPath;
+
+		@Label("Series Paint")
+		@Timespan(Timespan.NANOSECONDS)
+		long seriesPaint;
+
+		@Label("Composite")
+		@Timespan(Timespan.NANOSECONDS)
+		long composite;
+
+		@Label("Legend")
+		@Timespan(Timespan.NANOSECONDS)
+		long legend;
+
+		@Label("Series")
+		int seriesCount;
+
+		@Label("Vertices In")
+		long verticesIn;
+
+		@Label("Vertices Out")
+		long verticesOut;
+
+		@Label("Path Segments")
+		long pathSegments;
+
+		@Label("Markers")
+		long markers;
+
+		@Label("Glyphs Drawn")
+		long glyphsDrawn;
+
+		@Label("Glyph Cache Hits")
+		long glyphCacheHits;
+
+		@Label("Glyph Cache Misses")
+		long glyphCacheMisses;
+	}
+}
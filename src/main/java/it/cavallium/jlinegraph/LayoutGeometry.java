@@ -0,0 +1,348 @@
+package it.cavallium.jlinegraph;
+
+import it.cavallium.jlinegraph.GraphLayout.LabelWithOffset;
+import java.util.List;
+
+/**
+ * Raster geometry of a graph: plot rectangle, ticks, label positions and legend rectangle.
+ * <p>
+ * It's computed from the text metrics only, so it's shared by the renderers that don't draw text with AWT fonts.
+ *
+ * @param graphOffset top-left corner of the plot area
+ * @param graphSize size of the plot area, negative if the bounds are too small to contain it
+ * @param seriesNameMetrics metrics of the legend text, smaller than the requested ones if the legend didn't fit,
+ *                          null if the legend is hidden
+ * @param legendBounds raster bounds of the legend, null if the legend is hidden
+ */
+record LayoutGeometry(RasterSize graphOffset,
+											RasterSize graphSize,
+											RasterSize yAxisNameCenterOffset,
+											RasterSize xAxisNameCenterOffset,
+											RasterSize yValuesOffset,
+											RasterSize xValuesOffset,
+											double yValueLineOffset,
+											int yValueLineLength,
+											double xValueLineOffset,
+											int xValueLineLength,
+											RasterSize yLabelsAreaSize,
+											List<LabelWithOffset> xLabels,
+											List<LabelWithOffset> yLabels,
+											TextMetrics seriesNameMetrics,
+											GraphBounds legendBounds) {
+
+	private static final int MAX_LABELS = 1000;
+	private static final int MAX_TICKS = 20;
+
+	/**
+	 * @param legendMetrics metrics of the legend text at the size requested by the style
+	 * @param recorder recorder of the labels phase, or null
+	 */
+	static LayoutGeometry compute(Graph graph,
+			GraphBounds bounds,
+			TextMetrics defaultMetrics,
+			TextMetrics valuesMetrics,
+			TextMetrics axisNameMetrics,
+			TextMetrics legendMetrics,
+			RenderRecorder recorder) {
+		var paddingMultiplier = graph.style().paddingMultiplier();
+		var graphBounds = graph.data().bounds();
+		var x = graph.style().x();
+		var y = graph.style().y();
+		var padding = defaultMetrics.height() * paddingMultiplier;
+		var tickSpacingX = NiceScale.tickSpacing(graphBounds.minX(), graphBounds.maxX(), MAX_TICKS);
+		var tickSpacingY = NiceScale.tickSpacing(graphBounds.minY(), graphBounds.maxY(), MAX_TICKS);
+		var halfMaxXLabelWidth = x.mode().showLabels()
+						? (valuesMetrics.stringWidth(Ticks.get().format(y.valueFormat(), graphBounds.maxX())) / 2d) : 0;
+		var halfMaxYLabelHeight = (y.mode().showLabels() ? valuesMetrics.height() / 2d : 0);
+		var topPadding = padding + halfMaxYLabelHeight;
+		var leftPadding = padding
+						+ ((y.mode() == AxisMode.HIDE && !y.showName()) ? halfMaxXLabelWidth : 0);
+		var rightPadding = padding + (x.mode().showLabels() ? halfMaxXLabelWidth : 0);
+		var bottomPadding = padding
+						+ ((x.mode() == AxisMode.HIDE && !x.showName()) ? halfMaxYLabelHeight : 0);
+		var xValueLineLength = x.mode().showRuler() ? valuesMetrics.height() : 0;
+		var yValueLineLength = y.mode().showRuler() ? valuesMetrics.height() : 0;
+		var xValuesHeight = x.mode().showLabels() ? valuesMetrics.height() : 0;
+		var xValuesToXAxisNamePadding = (x.showName() ? valuesMetrics.height() / 2 : 0);
+		var xAxisNameHeight = (x.showName() ? axisNameMetrics.height() : 0);
+		var yAxisNameWidth = (y.showName() ? axisNameMetrics.height() : 0);
+		var yValuesToYAxisNamePadding = (y.showName() ? valuesMetrics.height() / 2 : 0);
+
+		var graphHeight
+				// Start with total height
+				= bounds.height()
+				// Remove the padding on top
+				- topPadding
+				// Remove the x value lines length
+				- xValueLineLength
+				// Remove the values height
+				- xValuesHeight
+				// Remove the space between the values and the axis name
+				- xValuesToXAxisNamePadding
+				// Remove x-axis name height
+				- xAxisNameHeight
+				// Remove the padding on bottom
+				- bottomPadding;
+
+		var xValueLineOffset = bounds.minY() + topPadding + graphHeight;
+
+		long labelsStart = RenderRecorder.now(recorder);
+		var yLabels = getYLabels(graph, graphHeight, valuesMetrics, tickSpacingY, y.mode());
+		if (recorder != null) {
+			recorder.nested(RenderPhase.LABELS, RenderPhase.LAYOUT, labelsStart);
+		}
+		RasterSize yLabelsAreaSize = computeYLabelsAreaSize(y.mode(), graphHeight, valuesMetrics, yLabels);
+		var yValuesWidth = yLabelsAreaSize.width();
+		var yValueLineOffset = bounds.minX() + leftPadding + yAxisNameWidth + yValuesToYAxisNamePadding + yValuesWidth;
+
+		var graphWidth
+				// Start with total width
+				= bounds.width()
+				// Remove the padding on left
+				- leftPadding
+				// Remove y-axis name "90deg height"
+				- yAxisNameWidth
+				// Remove the space between the values and the axis name
+				- yValuesToYAxisNamePadding
+				// Remove the y values width
+				- yValuesWidth
+				// Remove the y value lines length
+				- yValueLineLength
+				// Remove the padding on right
+				- rightPadding;
+
+		TextMetrics seriesNameMetrics = null;
+
+		if (graph.style().showLegend()) {
+			double legendSizeW;
+			double legendSizeH;
+
+			seriesNameMetrics = legendMetrics;
+			legendSizeW = getLegendSizeW(graph, seriesNameMetrics);
+			legendSizeH = getLegendSizeH(graph, seriesNameMetrics);
+
+			if (legendSizeW > graphWidth / 1.2d || legendSizeH > graphHeight / 1.5d) {
+				var newFontSizeW = (float) (seriesNameMetrics.size() * ((graphWidth / 1.2d) / legendSizeW));
+				var newFontSizeH = (float) (seriesNameMetrics.size() * ((graphHeight / 1.5d) / legendSizeH));
+				seriesNameMetrics = seriesNameMetrics.deriveSize(Math.min(newFontSizeW, newFontSizeH));
+			}
+		}
+
+		labelsStart = RenderRecorder.now(recorder);
+		var xLabels = getXLabels(graph, graphWidth, valuesMetrics, tickSpacingX, x.mode());
+		if (recorder != null) {
+			recorder.nested(RenderPhase.LABELS, RenderPhase.LAYOUT, labelsStart);
+		}
+
+		RasterSize yAxisNameCenterOffset = new RasterSize(bounds.minX()
+				+ leftPadding
+				+ valuesMetrics.height() / 2d, bounds.minY()
+				+ valuesMetrics.height()
+				// Add half of graph height
+				+ graphHeight / 2 + topPadding);
+
+		RasterSize yValuesOffset = new RasterSize(bounds.minX()
+				+ leftPadding
+				// Add y axis name "90deg height"
+				+ yAxisNameWidth
+				// Add the space between the values and the axis name
+				+ yValuesToYAxisNamePadding, bounds.minY() + topPadding);
+
+		RasterSize graphOffset = new RasterSize(bounds.minX()
+				+ leftPadding
+				+ yAxisNameWidth
+				+ yValuesToYAxisNamePadding
+				+ yValuesWidth
+				+ yValueLineLength, bounds.minY() + topPadding);
+		RasterSize xValuesOffset = new RasterSize(graphOffset.width(), xValueLineOffset + xValueLineLength);
+
+		RasterSize xAxisNameCenterOffset = new RasterSize(bounds.minX()
+				+	leftPadding
+				+ yAxisNameWidth
+				+ yValuesToYAxisNamePadding
+				+ yValuesWidth
+				+ yValueLineLength
+				// Add half of graph width
+				+ graphWidth / 2, bounds.minY()
+				+ topPadding
+				// Add graph height
+				+ graphHeight
+				// Add the x value lines length
+				+ xValueLineLength
+				// Add the x values height
+				+ xValuesHeight
+				// Add the space between the values and the axis name
+				+ xValuesToXAxisNamePadding
+				// Add x-axis half name height
+				+ axisNameMetrics.height() / 2d);
+
+		RasterSize graphSize = new RasterSize(graphWidth, graphHeight);
+
+		GraphBounds legendBounds = null;
+		if (graph.style().showLegend()) {
+			double seriesMargin = getSeriesMargin(seriesNameMetrics.height());
+			double legendSizeW = getLegendSizeW(graph, seriesNameMetrics);
+			double legendSizeH = getLegendSizeH(graph, seriesNameMetrics);
+			double legendOffsetX = graphOffset.width()
+					+ graphSize.width()
+					- seriesMargin
+					- legendSizeW;
+			double legendOffsetY = graphOffset.height()
+					+ seriesMargin;
+			legendBounds = GraphBounds.fromRasterSize(new RasterSize(legendOffsetX, legendOffsetY),
+					new RasterSize(legendSizeW, legendSizeH)
+			);
+		}
+
+		return new LayoutGeometry(graphOffset,
+				graphSize,
+				yAxisNameCenterOffset,
+				xAxisNameCenterOffset,
+				yValuesOffset,
+				xValuesOffset,
+				yValueLineOffset,
+				yValueLineLength,
+				xValueLineOffset,
+				xValueLineLength,
+				yLabelsAreaSize,
+				xLabels,
+				yLabels,
+				seriesNameMetrics,
+				legendBounds
+		);
+	}
+
+	/**
+	 * @return true if the plot area is not empty
+	 */
+	boolean hasPlotArea() {
+		return graphSize.width() >= 0 && graphSize.height() >= 0;
+	}
+
+	static double getSeriesMargin(int seriesNameHeight) {
+		return seriesNameHeight * 2d / 3d;
+	}
+
+	private static double getLegendSizeW(Graph graph, TextMetrics seriesNameMetrics) {
+		double seriesPadding = getSeriesPadding(seriesNameMetrics.height());
+		double seriesTextMaxWidth = getSeriesTextMaxWidth(graph, seriesNameMetrics);
+		double seriesPreviewLineWidth = seriesNameMetrics.height() * 2;
+		return seriesPadding
+				+ seriesTextMaxWidth
+				+ seriesPadding
+				+ seriesPreviewLineWidth
+				+ seriesPadding;
+	}
+
+	static double getSeriesPadding(int seriesNameHeight) {
+		return seriesNameHeight / 3d;
+	}
+
+	private static double getLegendSizeH(Graph graph, TextMetrics seriesNameMetrics) {
+		int seriesCount = 0;
+		for (SeriesData series : graph.data().series()) {
+			if (series.showInLegend()) {
+				seriesCount++;
+			}
+		}
+		double seriesPadding = getSeriesPadding(seriesNameMetrics.height());
+		double singleSeriesHeight = seriesNameMetrics.height();
+		return  seriesPadding / 2d
+				+ seriesCount * (seriesPadding / 2d + singleSeriesHeight + seriesPadding / 2d)
+				+ seriesPadding / 2d;
+	}
+
+	private static double getSeriesTextMaxWidth(Graph graph, TextMetrics seriesNameMetrics) {
+		double seriesTextMaxWidth = 0;
+		for (SeriesData series : graph.data().series()) {
+			if (series.showInLegend()) {
+				var seriesName = series.name();
+				var seriesNameRasterWidth = seriesNameMetrics.stringWidth(seriesName);
+				if (seriesTextMaxWidth < seriesNameRasterWidth) {
+					seriesTextMaxWidth = seriesNameRasterWidth;
+				}
+			}
+		}
+		return seriesTextMaxWidth;
+	}
+
+	private static RasterSize computeYLabelsAreaSize(AxisMode axisMode, double graphHeight, TextMetrics valuesMetrics,
+					List<LabelWithOffset> yLabels) {
+		if (!axisMode.showLabels()) {
+			return RasterSize.EMPTY;
+		}
+		double maxLabelWidth = 0d;
+		for (LabelWithOffset yLabel : yLabels) {
+			var currentMaxLabelWidth = valuesMetrics.stringWidth(yLabel.formattedText());
+			if (currentMaxLabelWidth > maxLabelWidth) {
+				maxLabelWidth = currentMaxLabelWidth;
+			}
+		}
+
+		return new RasterSize(maxLabelWidth, graphHeight);
+	}
+
+
+	/**
+	 * @return rendered labels
+	 */
+	private static List<LabelWithOffset> getXLabels(Graph graph,
+			double labelsAreaWidth,
+			TextMetrics valuesMetrics,
+			double tickSpacing,
+			AxisMode mode) {
+		if (mode == AxisMode.HIDE) {
+			return List.of();
+		}
+		var bounds = graph.data().bounds();
+		var format = graph.style().x().valueFormat();
+		var ticks = Ticks.get();
+		// Relative to the left edge of the plot, the first tick too, wherever the raster bounds start
+		ticks.compute(bounds.minX(), bounds.maxX(), tickSpacing, labelsAreaWidth, false, MAX_LABELS);
+
+		if (mode.showLabels()) {
+			double prevRasterLabelEndOffset = -Double.MAX_VALUE;
+			for (int i = 0; i < ticks.count; i++) {
+				var currentRasterOffset = ticks.offsets[i];
+				var formatted = ticks.format(format, ticks.values[i]);
+				var stringWidth = valuesMetrics.stringWidth(formatted);
+				if (currentRasterOffset - stringWidth / 2d > prevRasterLabelEndOffset) {
+					ticks.texts[i] = formatted;
+					prevRasterLabelEndOffset = currentRasterOffset + stringWidth / 2d;
+				}
+			}
+		}
+		return ticks.toLabels();
+	}
+
+	/**
+	 * @return rendered labels
+	 */
+	private static List<LabelWithOffset> getYLabels(Graph graph,
+			double labelsAreaHeight,
+			TextMetrics valuesMetrics,
+			double tickSpacing,
+			AxisMode mode) {
+		if (mode == AxisMode.HIDE) {
+			return List.of();
+		}
+		var bounds = graph.data().bounds();
+		var format = graph.style().y().valueFormat();
+		double stringTop = valuesMetrics.ascent();
+		double stringBottom = valuesMetrics.descent();
+		var ticks = Ticks.get();
+		ticks.compute(bounds.minY(), bounds.maxY(), tickSpacing, labelsAreaHeight, true, MAX_LABELS);
+
+		if (mode.showLabels()) {
+			double prevRasterLabelEndOffset = Double.MAX_VALUE;
+			for (int i = 0; i < ticks.count; i++) {
+				var currentRasterOffset = ticks.offsets[i];
+				if (currentRasterOffset + stringBottom < prevRasterLabelEndOffset) {
+					ticks.texts[i] = ticks.format(format, ticks.values[i]);
+					prevRasterLabelEndOffset = currentRasterOffset - stringTop;
+				}
+			}
+		}
+		return ticks.toLabels();
+	}
+}
@@ -0,0 +1,45 @@
+package it.cavallium.jlinegraph;
+
+import java.util.List;
+
+final class ListVertexColumns implements VertexColumns {
+
+	private final List<Vertex> vertices;
+
+	ListVertexColumns(List<Vertex> vertices) {
+		this.vertices = vertices;
+	}
+
+	@Override
+	public int size() {
+		return vertices.size();
+	}
+
+	@Override
+	public double x(int index) {
+		return vertices.get(index).x();
+	}
+
+	@Override
+	public double y(int index) {
+		return vertices.get(index).y();
+	}
+
+	/**
+	 * Compares the lists of vertices, reading all of them
+	 */
+	@Override
+	public boolean equals(Object o) {
+		return this == o || (o instanceof ListVertexColumns other && vertices.equals(other.vertices));
+	}
+
+	@Override
+	public int hashCode() {
+		return vertices.hashCode();
+	}
+
+	@Override
+	public List<Vertex> asList() {
+		return vertices;
+	}
+}
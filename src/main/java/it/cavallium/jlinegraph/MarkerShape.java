@@ -0,0 +1,74 @@
+package it.cavallium.jlinegraph;
+
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+
+/**
+ * Shape of the point markers of a series. All the shapes have about the area of the circle with the same radius
+ */
+public enum MarkerShape {
+	CIRCLE(null),
+	SQUARE(new double[] {-0.886, -0.886, 0.886, -0.886, 0.886, 0.886, -0.886, 0.886}),
+	/**
+	 * Equilateral triangle pointing up, centered on its centroid
+	 */
+	TRIANGLE(new double[] {0, -1.555, 1.347, 0.778, -1.347, 0.778}),
+	/**
+	 * Plus-shaped cross
+	 */
+	CROSS(new double[] {-0.4, -1.2, 0.4, -1.2, 0.4, -0.4, 1.2, -0.4, 1.2, 0.4, 0.4, 0.4,
+			0.4, 1.2, -0.4, 1.2, -0.4, 0.4, -1.2, 0.4, -1.2, -0.4, -0.4, -0.4});
+
+	/**
+	 * Vertices of the polygon of radius 1 centered on the origin, null for the circle
+	 */
+	private final double[] polygon;
+
+	MarkerShape(double[] polygon) {
+		this.polygon = polygon;
+	}
+
+	/**
+	 * @return the maximum distance of the shape from its center, relative to the radius
+	 */
+	double extent() {
+		return switch (this) {
+			case CIRCLE -> 1d;
+			case SQUARE -> 1.253d;
+			case TRIANGLE -> 1.555d;
+			case CROSS -> 1.265d;
+		};
+	}
+
+	/**
+	 * @return the marker centered on the specified point
+	 */
+	Shape shape(double centerX, double centerY, double radius) {
+		if (polygon == null) {
+			return new Ellipse2D.Double(centerX - radius, centerY - radius, radius * 2d, radius * 2d);
+		}
+		var path = new Path2D.Double(Path2D.WIND_NON_ZERO, polygon.length / 2);
+		path.moveTo(centerX + polygon[0] * radius, centerY + polygon[1] * radius);
+		for (int i = 2; i < polygon.length; i += 2) {
+			path.lineTo(centerX + polygon[i] * radius, centerY + polygon[i + 1] * radius);
+		}
+		path.closePath();
+		return path;
+	}
+
+	/**
+	 * Sends the marker centered on the specified point to the sink, as a closed polygon
+	 */
+	void appendTo(PathSink sink, double centerX, double centerY, double radius) {
+		if (polygon == null) {
+			PathSink.circle(sink, centerX, centerY, radius);
+			return;
+		}
+		sink.moveTo(centerX + polygon[0] * radius, centerY + polygon[1] * radius);
+		for (int i = 2; i < polygon.length; i += 2) {
+			sink.lineTo(centerX + polygon[i] * radius, centerY + polygon[i + 1] * radius);
+		}
+		sink.closePath();
+	}
+}
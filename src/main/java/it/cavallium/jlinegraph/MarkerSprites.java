@@ -0,0 +1,249 @@
+package it.cavallium.jlinegraph;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Draws point markers by stamping pre-rendered anti-aliased sprites instead of filling a shape per point.
+ * <p>
+ * A sprite is rendered once per (color, shape, radius, sub-pixel phase), with the marker center rounded to
+ * a sixteenth of pixel, and is then drawn at each point with an integer translation,
+ * which Java2D composites without going through the anti-aliased shape pipeline.
+ * Only the first point that falls in each pixel cell is stamped, the others would be covered by it.
+ */
+final class MarkerSprites {
+
+	/**
+	 * Sub-pixel positions per pixel, on each axis
+	 */
+	private static final int PHASES = 16;
+	private static final int MAX_SPRITES = 4096;
+	private static final Map<Key, BufferedImage> SPRITES = new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, BufferedImage> eldest) {
+			return size() > MAX_SPRITES;
+		}
+	};
+	/**
+	 * Pixel cells already stamped by the current series, one bit per cell of the clip
+	 */
+	private static final ThreadLocal<long[]> STAMPED_CELLS = ThreadLocal.withInitial(() -> new long[0]);
+	/**
+	 * Minimum number of points composited into a layer of the current thread and then drawn at once,
+	 * instead of drawing each sprite into the graphics
+	 */
+	private static final int LAYER_THRESHOLD = 4096;
+	/**
+	 * Maximum pixels of the layer kept by each thread, the bigger ones are allocated for a single series
+	 */
+	private static final int MAX_KEPT_LAYER_PIXELS = 1 << 22;
+	private static final ThreadLocal<BufferedImage> LAYER = new ThreadLocal<>();
+
+	private MarkerSprites() {
+	}
+
+	/**
+	 * Stamps the markers at the first points of the arrays, with the color of the graphics
+	 *
+	 * @return the number of markers stamped, or -1 if the graphics can't be stamped into, because it's not
+	 * translated by whole pixels, it's not clipped, it doesn't paint with a color or it's not opaque
+	 */
+	static int stamp(Graphics2D graphics2D, double[] xs, double[] ys, int size, MarkerShape shape, double radius) {
+		var transform = graphics2D.getTransform();
+		int type = transform.getType();
+		if ((type & ~AffineTransform.TYPE_TRANSLATION) != 0
+				|| transform.getTranslateX() != Math.rint(transform.getTranslateX())
+				|| transform.getTranslateY() != Math.rint(transform.getTranslateY())
+				|| !(graphics2D.getPaint() instanceof java.awt.Color color)
+				|| !(graphics2D.getComposite() instanceof AlphaComposite composite)
+				|| composite.getRule() != AlphaComposite.SRC_OVER
+				|| composite.getAlpha() != 1f
+				|| graphics2D.getClip() == null) {
+			return -1;
+		}
+		int margin = (int) Math.ceil(radius * shape.extent()) + 2;
+		Rectangle clip = graphics2D.getClipBounds();
+		int cellsX = clip.x - margin;
+		int cellsY = clip.y - margin;
+		int cellsWidth = clip.width + margin * 2;
+		int cellsHeight = clip.height + margin * 2;
+		if (clip.isEmpty() || (long) cellsWidth * cellsHeight > Integer.MAX_VALUE) {
+			return clip.isEmpty() ? 0 : -1;
+		}
+		int words = (int) (((long) cellsWidth * cellsHeight + 63) >>> 6);
+		long[] stamped = STAMPED_CELLS.get();
+		if (stamped.length < words) {
+			stamped = new long[words];
+			STAMPED_CELLS.set(stamped);
+		}
+		var sprites = new BufferedImage[PHASES * PHASES];
+		int argb = color.getRGB();
+		var strokeControl = graphics2D.getRenderingHint(RenderingHints.KEY_STROKE_CONTROL);
+		BufferedImage layer = null;
+		int[] layerPixels = null;
+		if (size >= LAYER_THRESHOLD) {
+			layer = getLayer(cellsWidth + margin * 2, cellsHeight + margin * 2);
+			layerPixels = ((DataBufferInt) layer.getRaster().getDataBuffer()).getData();
+		}
+		int layerWidth = layer != null ? layer.getWidth() : 0;
+		int dirtyMinX = Integer.MAX_VALUE, dirtyMinY = Integer.MAX_VALUE, dirtyMaxX = -1, dirtyMaxY = -1;
+		int count = 0;
+		try {
+			for (int i = 0; i < size; i++) {
+				long x = Math.round(xs[i] * PHASES);
+				long y = Math.round(ys[i] * PHASES);
+				long cellX = Math.floorDiv(x, PHASES) - cellsX;
+				long cellY = Math.floorDiv(y, PHASES) - cellsY;
+				if (cellX < 0 || cellY < 0 || cellX >= cellsWidth || cellY >= cellsHeight) {
+					continue;
+				}
+				int cell = (int) (cellY * cellsWidth + cellX);
+				if ((stamped[cell >>> 6] & (1L << cell)) != 0) {
+					continue;
+				}
+				stamped[cell >>> 6] |= 1L << cell;
+				int phase = Math.floorMod(y, PHASES) * PHASES + Math.floorMod(x, PHASES);
+				var sprite = sprites[phase];
+				if (sprite == null) {
+					sprite = getSprite(new Key(argb, shape, radius, phase, strokeControl), margin);
+					sprites[phase] = sprite;
+				}
+				if (layer != null) {
+					// The layer starts a margin before the cells, so it contains the sprite of every cell
+					int spriteX = (int) cellX;
+					int spriteY = (int) cellY;
+					composite(sprite, layerPixels, layerWidth, spriteX, spriteY);
+					dirtyMinX = Math.min(dirtyMinX, spriteX);
+					dirtyMinY = Math.min(dirtyMinY, spriteY);
+					dirtyMaxX = Math.max(dirtyMaxX, spriteX + sprite.getWidth() - 1);
+					dirtyMaxY = Math.max(dirtyMaxY, spriteY + sprite.getHeight() - 1);
+				} else {
+					graphics2D.drawImage(sprite, (int) (cellX + cellsX) - margin, (int) (cellY + cellsY) - margin, null);
+				}
+				count++;
+			}
+			if (layer != null && dirtyMaxX >= 0) {
+				graphics2D.drawImage(layer,
+						cellsX - margin + dirtyMinX,
+						cellsY - margin + dirtyMinY,
+						cellsX - margin + dirtyMaxX + 1,
+						cellsY - margin + dirtyMaxY + 1,
+						dirtyMinX,
+						dirtyMinY,
+						dirtyMaxX + 1,
+						dirtyMaxY + 1,
+						null
+				);
+			}
+		} finally {
+			Arrays.fill(stamped, 0, words, 0L);
+			if (layer != null) {
+				for (int y = dirtyMinY; y <= dirtyMaxY; y++) {
+					Arrays.fill(layerPixels, y * layerWidth + dirtyMinX, y * layerWidth + dirtyMaxX + 1, 0);
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return a transparent premultiplied image at least as big as specified, the one of the current thread
+	 * if it's big enough. It's kept for the next series only if it's not bigger than {@link #MAX_KEPT_LAYER_PIXELS}
+	 */
+	private static BufferedImage getLayer(int width, int height) {
+		var layer = LAYER.get();
+		if (layer != null && layer.getWidth() >= width && layer.getHeight() >= height) {
+			return layer;
+		}
+		int newWidth = Math.max(width, layer != null ? layer.getWidth() : 0);
+		int newHeight = Math.max(height, layer != null ? layer.getHeight() : 0);
+		if ((long) newWidth * newHeight > MAX_KEPT_LAYER_PIXELS) {
+			return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+		}
+		layer = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+		LAYER.set(layer);
+		return layer;
+	}
+
+	/**
+	 * Draws the premultiplied sprite over the premultiplied pixels, with its top-left corner at the specified position
+	 */
+	private static void composite(BufferedImage sprite, int[] pixels, int scanline, int x, int y) {
+		int[] spritePixels = ((DataBufferInt) sprite.getRaster().getDataBuffer()).getData();
+		int size = sprite.getWidth();
+		for (int row = 0; row < size; row++) {
+			int target = (y + row) * scanline + x;
+			int source = row * size;
+			for (int column = 0; column < size; column++) {
+				int src = spritePixels[source + column];
+				int srcAlpha = src >>> 24;
+				if (srcAlpha == 0) {
+					continue;
+				}
+				if (srcAlpha == 255) {
+					pixels[target + column] = src;
+					continue;
+				}
+				int dst = pixels[target + column];
+				int inverse = 255 - srcAlpha;
+				int a = srcAlpha + div255((dst >>> 24) * inverse);
+				int r = ((src >> 16) & 0xFF) + div255(((dst >> 16) & 0xFF) * inverse);
+				int g = ((src >> 8) & 0xFF) + div255(((dst >> 8) & 0xFF) * inverse);
+				int b = (src & 0xFF) + div255((dst & 0xFF) * inverse);
+				pixels[target + column] = (a << 24) | (r << 16) | (g << 8) | b;
+			}
+		}
+	}
+
+	/**
+	 * @return the value divided by 255 and rounded, for values up to 255 * 255
+	 */
+	private static int div255(int value) {
+		value += 128;
+		return (value + (value >> 8)) >> 8;
+	}
+
+	private static BufferedImage getSprite(Key key, int margin) {
+		BufferedImage sprite;
+		synchronized (SPRITES) {
+			sprite = SPRITES.get(key);
+		}
+		if (sprite != null) {
+			return sprite;
+		}
+		int size = margin * 2 + 1;
+		sprite = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB_PRE);
+		var graphics2D = sprite.createGraphics();
+		try {
+			AWTGraphRenderer.setRenderingHints(graphics2D);
+			graphics2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			if (key.strokeControl() != null) {
+				graphics2D.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, key.strokeControl());
+			}
+			graphics2D.setColor(new java.awt.Color(key.argb(), true));
+			graphics2D.fill(key.shape().shape(margin + (double) (key.phase() % PHASES) / PHASES,
+					margin + (double) (key.phase() / PHASES) / PHASES,
+					key.radius()
+			));
+		} finally {
+			graphics2D.dispose();
+		}
+		synchronized (SPRITES) {
+			SPRITES.put(key, sprite);
+		}
+		return sprite;
+	}
+
+	/**
+	 * @param phase sub-pixel position of the marker center, {@code y * PHASES + x}
+	 */
+	private record Key(int argb, MarkerShape shape, double radius, int phase, Object strokeControl) {}
+}
@@ -3,6 +3,29 @@ package it.cavallium.jlinegraph;
 @SuppressWarnings("FieldCanBeLocal")
 public class NiceScale {
 
+	/**
+	 * Powers of ten with an integer exponent, from {@code 10^MIN_EXPONENT}
+	 */
+	private static final double[] POWERS_OF_TEN;
+	private static final int MIN_EXPONENT = -330;
+	private static final int MAX_EXPONENT = 310;
+	/**
+	 * Number of tick spacings kept by each thread, a power of two
+	 */
+	private static final int SPACINGS_SIZE = 64;
+	/**
+	 * Tick spacings computed recently by each thread, indexed by the hash of their inputs:
+	 * minimum, maximum, maximum number of ticks and spacing of each entry, one after the other
+	 */
+	private static final ThreadLocal<double[]> SPACINGS = ThreadLocal.withInitial(() -> new double[SPACINGS_SIZE * 4]);
+
+	static {
+		POWERS_OF_TEN = new double[MAX_EXPONENT - MIN_EXPONENT + 1];
+		for (int i = 0; i < POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = Math.pow(10, MIN_EXPONENT + i);
+		}
+	}
+
 	private double minPoint;
 	private double maxPoint;
 	private double maxTicks = 10;
@@ -29,7 +52,7 @@ public class NiceScale {
 	 */
 	private void calculate() {
 		this.range = niceNum(maxPoint - minPoint, false);
-		this.tickSpacing = niceNum(range / (maxTicks - 1), true);
+		this.tickSpacing = tickSpacing(minPoint, maxPoint, maxTicks);
 		this.niceMin =
 				Math.floor(minPoint / tickSpacing) * tickSpacing;
 		this.niceMax =
@@ -44,13 +67,13 @@ public class NiceScale {
 	 * @param round whether to round the result
 	 * @return a "nice" number to be used for the data range
 	 */
-	private double niceNum(double range, boolean round) {
+	private static double niceNum(double range, boolean round) {
 		double exponent; /** exponent of range */
 		double fraction; /** fractional part of range */
 		double niceFraction; /** nice, rounded fraction */
 
 		exponent = Math.floor(Math.log10(range));
-		fraction = range / Math.pow(10, exponent);
+		fraction = range / pow10(exponent);
 
 		if (round) {
 			if (fraction < 1.5)
@@ -72,7 +95,40 @@ public class NiceScale {
 				niceFraction = 10;
 		}
 
-		return niceFraction * Math.pow(10, exponent);
+		return niceFraction * pow10(exponent);
+	}
+
+	private static double pow10(double exponent) {
+		if (exponent >= MIN_EXPONENT && exponent <= MAX_EXPONENT) {
+			return POWERS_OF_TEN[(int) exponent - MIN_EXPONENT];
+		}
+		return Math.pow(10, exponent);
+	}
+
+	/**
+	 * Computes the "nice" distance between two ticks without allocating, reusing the result of recent
+	 * computations with the same inputs
+	 *
+	 * @param min the minimum data point on the axis
+	 * @param max the maximum data point on the axis
+	 * @param maxTicks the maximum number of tick marks for the axis
+	 */
+	static double tickSpacing(double min, double max, double maxTicks) {
+		long hash = Double.doubleToLongBits(min) * 31 + Double.doubleToLongBits(max);
+		hash = hash * 31 + Double.doubleToLongBits(maxTicks);
+		int index = ((int) (hash ^ (hash >>> 32)) & (SPACINGS_SIZE - 1)) * 4;
+		var spacings = SPACINGS.get();
+		// The spacing of an empty entry is 0, so it never matches
+		if (spacings[index] == min && spacings[index + 1] == max && spacings[index + 2] == maxTicks
+				&& spacings[index + 3] != 0d) {
+			return spacings[index + 3];
+		}
+		double spacing = niceNum(niceNum(max - min, false) / (maxTicks - 1), true);
+		spacings[index] = min;
+		spacings[index + 1] = max;
+		spacings[index + 2] = maxTicks;
+		spacings[index + 3] = spacing;
+		return spacing;
 	}
 
 	/**
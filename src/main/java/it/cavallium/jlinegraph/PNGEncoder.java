@@ -0,0 +1,460 @@
+package it.cavallium.jlinegraph;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * PNG encoder that reads the pixels of the rendered images directly, without the conversions of ImageIO.
+ * <p>
+ * The image is split in bands of rows, each band is filtered and compressed into an independent deflate stream,
+ * ended with a sync flush so that the streams can be concatenated into a single zlib stream,
+ * and written as its own IDAT chunk. Bands are compressed in parallel if the encoder has a pool.
+ * Each row uses the filter with the smallest sum of absolute differences.
+ * Images without translucent pixels are written as RGB, the others as RGBA
+ */
+public final class PNGEncoder {
+
+	private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+	/**
+	 * Approximate number of filtered bytes compressed by each task
+	 */
+	private static final int BAND_BYTES = 1 << 17;
+	private static final int ADLER_BASE = 65521;
+	/**
+	 * Number of bytes summed by the filter heuristic between the checks of the best sum found so far
+	 */
+	private static final int FILTER_BLOCK = 256;
+	/**
+	 * Filters tried after the up filter. The ones that are usually the best for charts come first,
+	 * so that the others stop earlier
+	 */
+	private static final int[] FILTER_ORDER = {1, 0, 4, 3};
+	/**
+	 * Same default compression level of the ImageIO PNG writer
+	 */
+	public static final int DEFAULT_LEVEL = 4;
+
+	/**
+	 * Deflaters of each thread, shared by all the encoders, indexed by compression level + 1.
+	 * They are reset after each band, so a thread keeps at most one for each level
+	 */
+	private static final ThreadLocal<Deflater[]> DEFLATERS = ThreadLocal.withInitial(() -> new Deflater[11]);
+
+	private final ForkJoinPool pool;
+	private final int level;
+
+	/**
+	 * Creates an encoder that compresses the bands in parallel on the common pool, with the default level
+	 */
+	public PNGEncoder() {
+		this(ForkJoinPool.commonPool(), DEFAULT_LEVEL);
+	}
+
+	/**
+	 * @param pool pool used to compress the bands, or null to compress them sequentially
+	 * @param level deflate compression level, from 0 to 9, or {@link Deflater#DEFAULT_COMPRESSION}
+	 */
+	public PNGEncoder(ForkJoinPool pool, int level) {
+		if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+			throw new IndexOutOfBoundsException(level);
+		}
+		this.pool = pool;
+		this.level = level;
+	}
+
+	/**
+	 * Encodes an image. {@link BufferedImage#TYPE_INT_ARGB} and {@link BufferedImage#TYPE_INT_RGB} images are read
+	 * directly from their data buffer, the other types are converted first.
+	 * The channel is not closed
+	 */
+	public void write(BufferedImage image, WritableByteChannel channel) throws IOException {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		var raster = image.getRaster();
+		int type = image.getType();
+		if ((type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_RGB)
+				&& raster.getDataBuffer() instanceof DataBufferInt dataBuffer
+				&& raster.getSampleModel() instanceof SinglePixelPackedSampleModel sampleModel) {
+			int offset = dataBuffer.getOffset()
+					+ sampleModel.getOffset(-raster.getSampleModelTranslateX(), -raster.getSampleModelTranslateY());
+			var pixels = new Pixels(dataBuffer.getData(), offset, sampleModel.getScanlineStride(), width, height);
+			write(pixels, type == BufferedImage.TYPE_INT_RGB || pixels.isOpaque(), channel);
+		} else {
+			var pixels = new Pixels(image.getRGB(0, 0, width, height, null, 0, width), 0, width, width, height);
+			write(pixels, pixels.isOpaque(), channel);
+		}
+	}
+
+	/**
+	 * Encodes ARGB pixels stored row after row, like the ones of {@link SoftwareGraphRenderer}.
+	 * The channel is not closed
+	 */
+	public void write(int[] pixels, int width, int height, WritableByteChannel channel) throws IOException {
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("Invalid image size: " + width + "x" + height);
+		}
+		if (pixels.length < (long) width * height) {
+			throw new IllegalArgumentException("The pixels array is too small: " + pixels.length + " < " + width * height);
+		}
+		var data = new Pixels(pixels, 0, width, width, height);
+		write(data, data.isOpaque(), channel);
+	}
+
+	private void write(Pixels pixels, boolean opaque, WritableByteChannel channel) throws IOException {
+		int bytesPerPixel = opaque ? 3 : 4;
+		int rowBytes = pixels.width * bytesPerPixel;
+		int bandRows = Math.max(1, BAND_BYTES / (rowBytes + 1));
+		int bandCount = (pixels.height + bandRows - 1) / bandRows;
+
+		write(channel, ByteBuffer.wrap(SIGNATURE));
+		var header = ByteBuffer.allocate(13)
+				.putInt(pixels.width)
+				.putInt(pixels.height)
+				.put((byte) 8)
+				.put((byte) (opaque ? 2 : 6))
+				.put((byte) 0)
+				.put((byte) 0)
+				.put((byte) 0)
+				.flip();
+		writeChunk(channel, "IHDR", header);
+
+		List<ForkJoinTask<Band>> tasks = new ArrayList<>(bandCount);
+		if (pool != null && bandCount > 1) {
+			for (int i = 0; i < bandCount; i++) {
+				int startRow = i * bandRows;
+				int endRow = Math.min(pixels.height, startRow + bandRows);
+				boolean last = i == bandCount - 1;
+				tasks.add(pool.submit(() -> compressBand(pixels, bytesPerPixel, startRow, endRow, last)));
+			}
+		}
+		int adler = 1;
+		for (int i = 0; i < bandCount; i++) {
+			Band band;
+			if (tasks.isEmpty()) {
+				int startRow = i * bandRows;
+				band = compressBand(pixels, bytesPerPixel, startRow, Math.min(pixels.height, startRow + bandRows),
+						i == bandCount - 1);
+			} else {
+				band = join(tasks.get(i));
+			}
+			adler = combineAdler(adler, band.adler, band.rawLength);
+			var data = ByteBuffer.wrap(band.data, 0, band.length);
+			if (i == 0 && i == bandCount - 1) {
+				writeChunk(channel, "IDAT", zlibHeader(), data, adlerTrailer(adler));
+			} else if (i == 0) {
+				writeChunk(channel, "IDAT", zlibHeader(), data);
+			} else if (i == bandCount - 1) {
+				writeChunk(channel, "IDAT", data, adlerTrailer(adler));
+			} else {
+				writeChunk(channel, "IDAT", data);
+			}
+		}
+		writeChunk(channel, "IEND");
+	}
+
+	/**
+	 * Filters the rows of a band and compresses them. Every band but the last one ends with a sync flush,
+	 * the last one ends the deflate stream
+	 */
+	private Band compressBand(Pixels pixels, int bytesPerPixel, int startRow, int endRow, boolean last) {
+		int rowBytes = pixels.width * bytesPerPixel;
+		int rawLength = (endRow - startRow) * (rowBytes + 1);
+		var filtered = new byte[rawLength];
+		var previous = new byte[bytesPerPixel + rowBytes];
+		var current = new byte[bytesPerPixel + rowBytes];
+		if (startRow > 0) {
+			pixels.readRow(startRow - 1, bytesPerPixel, previous);
+		}
+		int position = 0;
+		for (int y = startRow; y < endRow; y++) {
+			pixels.readRow(y, bytesPerPixel, current);
+			filterRow(current, previous, bytesPerPixel, filtered, position);
+			position += rowBytes + 1;
+			var swap = previous;
+			previous = current;
+			current = swap;
+		}
+		var adler32 = new Adler32();
+		adler32.update(filtered, 0, rawLength);
+
+		var deflater = getDeflater();
+		try {
+			deflater.setInput(filtered, 0, rawLength);
+			var output = new byte[Math.max(64, rawLength / 4)];
+			int length = 0;
+			if (last) {
+				deflater.finish();
+			}
+			while (true) {
+				if (length == output.length) {
+					output = Arrays.copyOf(output, output.length * 2);
+				}
+				int written = deflater.deflate(output, length, output.length - length,
+						last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+				length += written;
+				// A flush is complete when it doesn't fill the output buffer
+				if (last ? deflater.finished() : length < output.length && deflater.needsInput()) {
+					break;
+				}
+			}
+			return new Band(output, length, (int) adler32.getValue(), rawLength);
+		} finally {
+			deflater.reset();
+		}
+	}
+
+	/**
+	 * @return the raw deflater of the current thread with the compression level of this encoder
+	 */
+	private Deflater getDeflater() {
+		var deflaters = DEFLATERS.get();
+		var deflater = deflaters[level + 1];
+		if (deflater == null) {
+			deflater = new Deflater(level, true);
+			deflaters[level + 1] = deflater;
+		}
+		return deflater;
+	}
+
+	/**
+	 * Writes the filter type byte followed by the filtered row, choosing the filter with the minimum sum
+	 * of absolute differences.
+	 * The rows start with a pixel of zeros, the missing left neighbour of the first pixel
+	 */
+	private static void filterRow(byte[] row, byte[] previous, int bytesPerPixel, byte[] out, int offset) {
+		int filter = chooseFilter(row, previous, bytesPerPixel);
+		out[offset] = (byte) filter;
+		int shift = offset + 1 - bytesPerPixel;
+		int length = row.length;
+		switch (filter) {
+			case 0 -> System.arraycopy(row, bytesPerPixel, out, offset + 1, length - bytesPerPixel);
+			case 1 -> {
+				for (int i = bytesPerPixel; i < length; i++) {
+					out[shift + i] = (byte) (row[i] - row[i - bytesPerPixel]);
+				}
+			}
+			case 2 -> {
+				for (int i = bytesPerPixel; i < length; i++) {
+					out[shift + i] = (byte) (row[i] - previous[i]);
+				}
+			}
+			case 3 -> {
+				for (int i = bytesPerPixel; i < length; i++) {
+					out[shift + i] = (byte) (row[i] - (((row[i - bytesPerPixel] & 0xFF) + (previous[i] & 0xFF)) >>> 1));
+				}
+			}
+			default -> {
+				for (int i = bytesPerPixel; i < length; i++) {
+					int predicted = paeth(row[i - bytesPerPixel] & 0xFF, previous[i] & 0xFF,
+							previous[i - bytesPerPixel] & 0xFF);
+					out[shift + i] = (byte) (row[i] - predicted);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the filter type with the minimum sum of absolute differences
+	 */
+	private static int chooseFilter(byte[] row, byte[] previous, int bytesPerPixel) {
+		// A row equal to the previous one is all zeros with the up filter, the best possible result
+		if (Arrays.equals(row, previous)) {
+			return 2;
+		}
+		int bestFilter = 2;
+		int best = filterCost(2, row, previous, bytesPerPixel, Integer.MAX_VALUE);
+		for (int filter : FILTER_ORDER) {
+			int cost = filterCost(filter, row, previous, bytesPerPixel, best);
+			if (cost < best) {
+				bestFilter = filter;
+				best = cost;
+			}
+		}
+		return bestFilter;
+	}
+
+	/**
+	 * Sums the absolute differences of a filter, in blocks, stopping as soon as the sum reaches the limit
+	 */
+	private static int filterCost(int filter, byte[] row, byte[] previous, int bytesPerPixel, int limit) {
+		int length = row.length;
+		int sum = 0;
+		for (int start = bytesPerPixel; start < length && sum < limit; start += FILTER_BLOCK) {
+			int end = Math.min(length, start + FILTER_BLOCK);
+			switch (filter) {
+				case 0 -> {
+					for (int i = start; i < end; i++) {
+						sum += Math.abs(row[i]);
+					}
+				}
+				case 1 -> {
+					for (int i = start; i < end; i++) {
+						sum += Math.abs((byte) (row[i] - row[i - bytesPerPixel]));
+					}
+				}
+				case 2 -> {
+					for (int i = start; i < end; i++) {
+						sum += Math.abs((byte) (row[i] - previous[i]));
+					}
+				}
+				case 3 -> {
+					for (int i = start; i < end; i++) {
+						sum += Math.abs((byte) (row[i] - (((row[i - bytesPerPixel] & 0xFF) + (previous[i] & 0xFF)) >>> 1)));
+					}
+				}
+				default -> {
+					for (int i = start; i < end; i++) {
+						int predicted = paeth(row[i - bytesPerPixel] & 0xFF, previous[i] & 0xFF,
+								previous[i - bytesPerPixel] & 0xFF);
+						sum += Math.abs((byte) (row[i] - predicted));
+					}
+				}
+			}
+		}
+		return sum;
+	}
+
+	private static int paeth(int a, int b, int c) {
+		int pa = Math.abs(b - c);
+		int pb = Math.abs(a - c);
+		int pc = Math.abs(a + b - c - c);
+		return pa <= pb && pa <= pc ? a : pb <= pc ? b : c;
+	}
+
+	/**
+	 * Computes the Adler-32 checksum of two consecutive sequences of bytes from their checksums
+	 *
+	 * @param length2 length of the second sequence
+	 */
+	static int combineAdler(int adler1, int adler2, int length2) {
+		long remainder = Integer.toUnsignedLong(length2) % ADLER_BASE;
+		long sum1 = adler1 & 0xFFFF;
+		long sum2 = (remainder * sum1) % ADLER_BASE;
+		sum1 += (adler2 & 0xFFFF) + ADLER_BASE - 1;
+		sum2 += (adler1 >>> 16) + (adler2 >>> 16) + ADLER_BASE - remainder;
+		if (sum1 >= ADLER_BASE) {
+			sum1 -= ADLER_BASE;
+		}
+		if (sum1 >= ADLER_BASE) {
+			sum1 -= ADLER_BASE;
+		}
+		if (sum2 >= (ADLER_BASE << 1)) {
+			sum2 -= (ADLER_BASE << 1);
+		}
+		if (sum2 >= ADLER_BASE) {
+			sum2 -= ADLER_BASE;
+		}
+		return (int) (sum1 | (sum2 << 16));
+	}
+
+	private static ByteBuffer zlibHeader() {
+		// Deflate with a 32K window, no preset dictionary
+		return ByteBuffer.wrap(new byte[] {0x78, (byte) 0x9C});
+	}
+
+	private static ByteBuffer adlerTrailer(int adler) {
+		return ByteBuffer.allocate(4).putInt(adler).flip();
+	}
+
+	private static void writeChunk(WritableByteChannel channel, String type, ByteBuffer... parts) throws IOException {
+		int length = 0;
+		for (ByteBuffer part : parts) {
+			length += part.remaining();
+		}
+		var typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+		var crc = new CRC32();
+		crc.update(typeBytes);
+		for (ByteBuffer part : parts) {
+			crc.update(part.duplicate());
+		}
+		write(channel, ByteBuffer.allocate(8).putInt(length).put(typeBytes).flip());
+		for (ByteBuffer part : parts) {
+			write(channel, part);
+		}
+		write(channel, ByteBuffer.allocate(4).putInt((int) crc.getValue()).flip());
+	}
+
+	private static void write(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	private static <T> T join(ForkJoinTask<T> task) throws IOException {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while encoding", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			throw new IOException("Failed to encode", e.getCause());
+		}
+	}
+
+	/**
+	 * @param length number of valid bytes of the data
+	 * @param rawLength number of filtered bytes before the compression
+	 */
+	private record Band(byte[] data, int length, int adler, int rawLength) {}
+
+	/**
+	 * ARGB pixels in an int array, with the specified offset of the first pixel and distance between the rows
+	 */
+	private record Pixels(int[] data, int offset, int stride, int width, int height) {
+
+		boolean isOpaque() {
+			for (int y = 0; y < height; y++) {
+				int rowStart = offset + y * stride;
+				for (int i = rowStart; i < rowStart + width; i++) {
+					if (data[i] >>> 24 != 0xFF) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Converts a row to bytes, after a pixel of zeros
+		 */
+		void readRow(int y, int bytesPerPixel, byte[] row) {
+			int start = offset + y * stride;
+			int position = bytesPerPixel;
+			if (bytesPerPixel == 3) {
+				for (int i = start; i < start + width; i++) {
+					int pixel = data[i];
+					row[position] = (byte) (pixel >>> 16);
+					row[position + 1] = (byte) (pixel >>> 8);
+					row[position + 2] = (byte) pixel;
+					position += 3;
+				}
+			} else {
+				for (int i = start; i < start + width; i++) {
+					int pixel = data[i];
+					row[position] = (byte) (pixel >>> 16);
+					row[position + 1] = (byte) (pixel >>> 8);
+					row[position + 2] = (byte) pixel;
+					row[position + 3] = (byte) (pixel >>> 24);
+					position += 4;
+				}
+			}
+		}
+	}
+}
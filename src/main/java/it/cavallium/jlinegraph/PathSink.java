@@ -0,0 +1,118 @@
+package it.cavallium.jlinegraph;
+
+import java.awt.geom.PathIterator;
+
+/**
+ * Receiver of flattened paths of the software renderer
+ */
+interface PathSink {
+
+	/**
+	 * Maximum distance between a curve and its flattened polyline, in pixels
+	 */
+	double FLATNESS = 0.1d;
+
+	void moveTo(double x, double y);
+
+	void lineTo(double x, double y);
+
+	void closePath();
+
+	/**
+	 * Sends the path to the sink, replacing the curves with polylines
+	 */
+	static void append(PathIterator iterator, PathSink sink) {
+		var coords = new double[6];
+		double currentX = 0, currentY = 0;
+		double startX = 0, startY = 0;
+		while (!iterator.isDone()) {
+			switch (iterator.currentSegment(coords)) {
+				case PathIterator.SEG_MOVETO -> {
+					sink.moveTo(coords[0], coords[1]);
+					startX = currentX = coords[0];
+					startY = currentY = coords[1];
+				}
+				case PathIterator.SEG_LINETO -> {
+					sink.lineTo(coords[0], coords[1]);
+					currentX = coords[0];
+					currentY = coords[1];
+				}
+				case PathIterator.SEG_QUADTO -> {
+					quadTo(sink, currentX, currentY, coords[0], coords[1], coords[2], coords[3]);
+					currentX = coords[2];
+					currentY = coords[3];
+				}
+				case PathIterator.SEG_CUBICTO -> {
+					curveTo(sink, currentX, currentY, coords[0], coords[1], coords[2], coords[3], coords[4], coords[5]);
+					currentX = coords[4];
+					currentY = coords[5];
+				}
+				case PathIterator.SEG_CLOSE -> {
+					sink.closePath();
+					currentX = startX;
+					currentY = startY;
+				}
+			}
+			iterator.next();
+		}
+	}
+
+	/**
+	 * Flattens a quadratic curve starting from the current point, in a number of uniform steps
+	 * that keeps the error below {@link #FLATNESS}
+	 */
+	static void quadTo(PathSink sink, double x0, double y0, double x1, double y1, double x2, double y2) {
+		double ddx = x0 - 2 * x1 + x2;
+		double ddy = y0 - 2 * y1 + y2;
+		int steps = (int) Math.ceil(Math.sqrt(Math.sqrt(ddx * ddx + ddy * ddy) / (4 * FLATNESS)));
+		steps = Math.max(1, Math.min(steps, 100));
+		for (int i = 1; i < steps; i++) {
+			double t = (double) i / steps;
+			double mt = 1 - t;
+			sink.lineTo(mt * mt * x0 + 2 * mt * t * x1 + t * t * x2, mt * mt * y0 + 2 * mt * t * y1 + t * t * y2);
+		}
+		sink.lineTo(x2, y2);
+	}
+
+	/**
+	 * Flattens a cubic curve starting from the current point, in a number of uniform steps
+	 * that keeps the error below {@link #FLATNESS}
+	 */
+	static void curveTo(PathSink sink,
+			double x0,
+			double y0,
+			double x1,
+			double y1,
+			double x2,
+			double y2,
+			double x3,
+			double y3) {
+		double ddx = Math.max(Math.abs(x0 - 2 * x1 + x2), Math.abs(x1 - 2 * x2 + x3));
+		double ddy = Math.max(Math.abs(y0 - 2 * y1 + y2), Math.abs(y1 - 2 * y2 + y3));
+		int steps = (int) Math.ceil(Math.sqrt(0.75d * Math.sqrt(ddx * ddx + ddy * ddy) / FLATNESS));
+		steps = Math.max(1, Math.min(steps, 100));
+		for (int i = 1; i < steps; i++) {
+			double t = (double) i / steps;
+			double mt = 1 - t;
+			double a = mt * mt * mt;
+			double b = 3 * mt * mt * t;
+			double c = 3 * mt * t * t;
+			double d = t * t * t;
+			sink.lineTo(a * x0 + b * x1 + c * x2 + d * x3, a * y0 + b * y1 + c * y2 + d * y3);
+		}
+		sink.lineTo(x3, y3);
+	}
+
+	/**
+	 * Adds a closed circle with a positive signed area, like the polygons of {@link SoftwareStroker}
+	 */
+	static void circle(PathSink sink, double centerX, double centerY, double radius) {
+		int steps = Math.max(8, Math.min((int) Math.ceil(2 * Math.PI * radius / 0.75d), 256));
+		sink.moveTo(centerX + radius, centerY);
+		for (int i = 1; i < steps; i++) {
+			double angle = 2 * Math.PI * i / steps;
+			sink.lineTo(centerX + radius * Math.cos(angle), centerY + radius * Math.sin(angle));
+		}
+		sink.closePath();
+	}
+}
@@ -0,0 +1,120 @@
+package it.cavallium.jlinegraph;
+
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe pool of {@link BufferedImage}s keyed by size and type.
+ * <p>
+ * Acquired images keep the content of their previous use. Release them when they are not used anymore,
+ * so that steady-state rendering does not allocate large rasters.
+ */
+public final class RasterPool {
+
+	private final int maxIdlePerKey;
+	private final Map<Key, IdleImages> idleImages = new ConcurrentHashMap<>();
+	private final AtomicInteger idleCount = new AtomicInteger();
+	private final LongAdder allocations = new LongAdder();
+	private final LongAdder reuses = new LongAdder();
+
+	/**
+	 * @param maxIdlePerKey maximum number of released images kept for each size and type
+	 */
+	public RasterPool(int maxIdlePerKey) {
+		if (maxIdlePerKey <= 0) {
+			throw new IllegalArgumentException("maxIdlePerKey must be greater than zero");
+		}
+		this.maxIdlePerKey = maxIdlePerKey;
+	}
+
+	/**
+	 * @return an idle image with the specified size and type, or a new one if there are none
+	 */
+	public BufferedImage acquire(int width, int height, int imageType) {
+		var idle = idleImages.get(new Key(width, height, imageType));
+		if (idle != null) {
+			var image = idle.images().pollFirst();
+			if (image != null) {
+				idle.count().decrementAndGet();
+				idleCount.decrementAndGet();
+				reuses.increment();
+				return image;
+			}
+		}
+		allocations.increment();
+		return new BufferedImage(width, height, imageType);
+	}
+
+	/**
+	 * Returns an image to the pool. It's discarded if the pool already keeps enough images of the same size and type
+	 */
+	public void release(BufferedImage image) {
+		var idle = idleImages.computeIfAbsent(new Key(image.getWidth(), image.getHeight(), image.getType()),
+				key -> new IdleImages(new ConcurrentLinkedDeque<>(), new AtomicInteger())
+		);
+		// The slot is reserved before adding the image, so concurrent releases can't exceed the limit
+		if (idle.count().incrementAndGet() > maxIdlePerKey) {
+			idle.count().decrementAndGet();
+			return;
+		}
+		idle.images().addFirst(image);
+		idleCount.incrementAndGet();
+	}
+
+	/**
+	 * Discards all the idle images
+	 */
+	public void clear() {
+		for (var idle : idleImages.values()) {
+			while (idle.images().pollFirst() != null) {
+				idle.count().decrementAndGet();
+				idleCount.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * @return number of images currently idle in the pool
+	 */
+	public int idleCount() {
+		return idleCount.get();
+	}
+
+	/**
+	 * @return approximate size in bytes of the images currently idle in the pool
+	 */
+	public long idleBytes() {
+		long bytes = 0;
+		for (var idle : idleImages.values()) {
+			for (BufferedImage image : idle.images()) {
+				bytes += (long) image.getWidth() * image.getHeight() * image.getColorModel().getPixelSize() / 8;
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * @return number of images allocated because no idle image was available
+	 */
+	public long allocations() {
+		return allocations.sum();
+	}
+
+	/**
+	 * @return number of acquisitions served by an idle image
+	 */
+	public long reuses() {
+		return reuses.sum();
+	}
+
+	private record Key(int width, int height, int imageType) {}
+
+	/**
+	 * @param count number of images, counting the ones that are being added
+	 */
+	private record IdleImages(ConcurrentLinkedDeque<BufferedImage> images, AtomicInteger count) {}
+}
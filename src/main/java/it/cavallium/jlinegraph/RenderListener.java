@@ -0,0 +1,20 @@
+package it.cavallium.jlinegraph;
+
+/**
+ * Receives the timings and counters of each render.
+ * <p>
+ * Renderers check for {@link #NONE} once per render: when it's used, no timestamps are taken
+ * and no counters are updated. Both methods are called on the thread that started the render
+ */
+public interface RenderListener {
+
+	/**
+	 * Disables the instrumentation
+	 */
+	RenderListener NONE = (graph, stats) -> {};
+
+	default void renderStarted(Graph graph) {
+	}
+
+	void renderCompleted(Graph graph, RenderStats stats);
+}
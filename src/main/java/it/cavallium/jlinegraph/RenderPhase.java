@@ -0,0 +1,34 @@
+package it.cavallium.jlinegraph;
+
+/**
+ * Phases of a render reported to a {@link RenderListener}. The phases don't overlap,
+ * their durations add up to the time spent inside the renderer
+ */
+public enum RenderPhase {
+	/**
+	 * Fonts, metrics, strokes, plot rectangle and legend rectangle
+	 */
+	LAYOUT,
+	/**
+	 * Ticks computation and value labels formatting
+	 */
+	LABELS,
+	/**
+	 * Background, borders, axis names, value labels and zero lines
+	 */
+	FRAME,
+	/**
+	 * Projection, sorting and downsampling of the vertices, and construction of the series paths
+	 */
+	SERIES_PATH,
+	/**
+	 * Anti-aliased fill and stroke of the series points, areas and lines
+	 */
+	SERIES_PAINT,
+	/**
+	 * Compositing of the per-series layers, when the series are rendered in parallel,
+	 * or of the cached plot layer of {@link ScrollingGraphRenderer}
+	 */
+	COMPOSITE,
+	LEGEND
+}
@@ -0,0 +1,115 @@
+package it.cavallium.jlinegraph;
+
+/**
+ * Accumulates the measurements of a render. Not thread safe, parallel tasks use their own recorder
+ * and {@link #merge(RenderRecorder)} it at the end.
+ * <p>
+ * A null recorder means that the instrumentation is disabled, all the static helpers accept it
+ */
+final class RenderRecorder {
+
+	private final long startNanos = System.nanoTime();
+	private final long[] phaseNanos = new long[RenderPhase.values().length];
+	private int seriesCount;
+	private long verticesIn;
+	private long verticesOut;
+	private long pathSegments;
+	private long markers;
+	private long glyphsDrawn;
+	private long glyphCacheHits;
+	private long glyphCacheMisses;
+
+	/**
+	 * @return a new recorder, or null if the listener is {@link RenderListener#NONE}
+	 */
+	static RenderRecorder start(RenderListener listener, Graph graph) {
+		if (listener == RenderListener.NONE) {
+			return null;
+		}
+		listener.renderStarted(graph);
+		return new RenderRecorder();
+	}
+
+	static void complete(RenderRecorder recorder, RenderListener listener, Graph graph) {
+		if (recorder != null) {
+			listener.renderCompleted(graph, recorder.toStats(System.nanoTime() - recorder.startNanos));
+		}
+	}
+
+	/**
+	 * @return the current time, or 0 if the recorder is null
+	 */
+	static long now(RenderRecorder recorder) {
+		return recorder != null ? System.nanoTime() : 0L;
+	}
+
+	/**
+	 * Adds the time elapsed since the start to the phase
+	 */
+	void phase(RenderPhase phase, long startNanos) {
+		phaseNanos[phase.ordinal()] += System.nanoTime() - startNanos;
+	}
+
+	/**
+	 * Moves the time elapsed since the start from the outer phase, which is still running, to the inner phase
+	 */
+	void nested(RenderPhase inner, RenderPhase outer, long startNanos) {
+		long elapsed = System.nanoTime() - startNanos;
+		phaseNanos[inner.ordinal()] += elapsed;
+		phaseNanos[outer.ordinal()] -= elapsed;
+	}
+
+	void series(int verticesIn, int verticesOut, int pathSegments, int markers) {
+		this.seriesCount++;
+		this.verticesIn += verticesIn;
+		this.verticesOut += verticesOut;
+		this.pathSegments += pathSegments;
+		this.markers += markers;
+	}
+
+	void glyphs(String text) {
+		glyphsDrawn += text.codePointCount(0, text.length());
+	}
+
+	void glyphCacheHit() {
+		glyphCacheHits++;
+	}
+
+	void glyphCacheMiss() {
+		glyphCacheMisses++;
+	}
+
+	void merge(RenderRecorder other) {
+		for (int i = 0; i < phaseNanos.length; i++) {
+			phaseNanos[i] += other.phaseNanos[i];
+		}
+		seriesCount += other.seriesCount;
+		verticesIn += other.verticesIn;
+		verticesOut += other.verticesOut;
+		pathSegments += other.pathSegments;
+		markers += other.markers;
+		glyphsDrawn += other.glyphsDrawn;
+		glyphCacheHits += other.glyphCacheHits;
+		glyphCacheMisses += other.glyphCacheMisses;
+	}
+
+	private RenderStats toStats(long totalNanos) {
+		return new RenderStats(totalNanos,
+				phaseNanos[RenderPhase.LAYOUT.ordinal()],
+				phaseNanos[RenderPhase.LABELS.ordinal()],
+				phaseNanos[RenderPhase.FRAME.ordinal()],
+				phaseNanos[RenderPhase.SERIES_PATH.ordinal()],
+				phaseNanos[RenderPhase.SERIES_PAINT.ordinal()],
+				phaseNanos[RenderPhase.COMPOSITE.ordinal()],
+				phaseNanos[RenderPhase.LEGEND.ordinal()],
+				seriesCount,
+				verticesIn,
+				verticesOut,
+				pathSegments,
+				markers,
+				glyphsDrawn,
+				glyphCacheHits,
+				glyphCacheMisses
+		);
+	}
+}
@@ -0,0 +1,46 @@
+package it.cavallium.jlinegraph;
+
+/**
+ * Measurements of a single render.
+ * <p>
+ * When the series are rendered in parallel, the series phases are the sum of the time spent by each thread,
+ * so the phases can add up to more than {@code totalNanos}
+ *
+ * @param totalNanos wall-clock duration of the render
+ * @param verticesIn vertices read from the series data, without the ones skipped because they are outside the clip
+ * @param verticesOut vertices left after downsampling, used to build the paths
+ * @param pathSegments lines and curves of the series paths
+ * @param markers point markers drawn
+ * @param glyphsDrawn characters of all the text drawn
+ * @param glyphCacheHits text outlines found in the {@link GlyphOutlineCache}
+ * @param glyphCacheMisses text outlines laid out because they were not cached
+ */
+public record RenderStats(long totalNanos,
+													long layoutNanos,
+													long labelsNanos,
+													long frameNanos,
+													long seriesPathNanos,
+													long seriesPaintNanos,
+													long compositeNanos,
+													long legendNanos,
+													int seriesCount,
+													long verticesIn,
+													long verticesOut,
+													long pathSegments,
+													long markers,
+													long glyphsDrawn,
+													long glyphCacheHits,
+													long glyphCacheMisses) {
+
+	public long nanos(RenderPhase phase) {
+		return switch (phase) {
+			case LAYOUT -> layoutNanos;
+			case LABELS -> labelsNanos;
+			case FRAME -> frameNanos;
+			case SERIES_PATH -> seriesPathNanos;
+			case SERIES_PAINT -> seriesPaintNanos;
+			case COMPOSITE -> compositeNanos;
+			case LEGEND -> legendNanos;
+		};
+	}
+}
@@ -0,0 +1,541 @@
+package it.cavallium.jlinegraph;
+
+import it.cavallium.jlinegraph.GraphLayout.LabelWithOffset;
+import it.cavallium.jlinegraph.SVGGraphRenderer.SVGDrawer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Renders graphs as SVG documents, streamed to a {@link Writer} while they are drawn, without building a DOM.
+ * <p>
+ * The layout is the same of the other renderers, measured with the metrics of the built-in {@link StrokeFont},
+ * that follow the default AWT font. Text is written as {@code <text>} elements in the generic sans-serif font
+ * of the client, anchored at the same points of the AWT text, and coordinates are rounded to a fixed number
+ * of decimals.
+ */
+public class SVGGraphRenderer implements IGraphRenderer<SVGDrawer> {
+
+	/**
+	 * Makes the clip paths unique when many documents are embedded in the same page
+	 */
+	private static final AtomicLong CLIP_IDS = new AtomicLong();
+	/**
+	 * Encoder of the density images, embedded as PNG data URIs
+	 */
+	private static final PNGEncoder DENSITY_ENCODER = new PNGEncoder(null, PNGEncoder.DEFAULT_LEVEL);
+
+	private final int decimals;
+	private final RenderListener listener;
+
+	/**
+	 * Creates a renderer that writes the coordinates with 2 decimals
+	 */
+	public SVGGraphRenderer() {
+		this(2, RenderListener.NONE);
+	}
+
+	/**
+	 * @param decimals maximum number of decimals of the coordinates, from 0 to 6
+	 */
+	public SVGGraphRenderer(int decimals) {
+		this(decimals, RenderListener.NONE);
+	}
+
+	/**
+	 * @param decimals maximum number of decimals of the coordinates, from 0 to 6
+	 * @param listener listener notified with the timings and counters of each render
+	 */
+	public SVGGraphRenderer(int decimals, RenderListener listener) {
+		if (decimals < 0 || decimals > 6) {
+			throw new IndexOutOfBoundsException();
+		}
+		this.decimals = decimals;
+		this.listener = listener;
+	}
+
+	@Override
+	public SVGDrawer renderGraph(Graph graph, GraphBounds bounds) {
+		return writer -> renderGraph(writer, graph, bounds, decimals, listener);
+	}
+
+	public static void renderGraph(Writer writer, Graph graph, GraphBounds bounds) throws IOException {
+		renderGraph(writer, graph, bounds, 2, RenderListener.NONE);
+	}
+
+	/**
+	 * Writes the SVG document of the graph. The viewport goes from the origin to the bottom-right corner
+	 * of the bounds, like the images of {@link AWTBufferedGraphRenderer}. The writer is not flushed
+	 *
+	 * @param decimals maximum number of decimals of the coordinates, from 0 to 6
+	 */
+	public static void renderGraph(Writer writer,
+			Graph graph,
+			GraphBounds bounds,
+			int decimals,
+			RenderListener listener) throws IOException {
+		if (decimals < 0 || decimals > 6) {
+			throw new IndexOutOfBoundsException();
+		}
+		var recorder = RenderRecorder.start(listener, graph);
+		long layoutStart = RenderRecorder.now(recorder);
+		var fonts = graph.style().fonts();
+		var valuesMetrics = StrokeFont.metrics((float) fonts.valueLabel());
+		var axisNameMetrics = StrokeFont.metrics((float) fonts.axisName());
+		var layout = LayoutGeometry.compute(graph,
+				bounds,
+				StrokeFont.metrics((float) fonts.global()),
+				valuesMetrics,
+				axisNameMetrics,
+				StrokeFont.metrics((float) fonts.seriesName()),
+				recorder
+		);
+		if (recorder != null) {
+			recorder.phase(RenderPhase.LAYOUT, layoutStart);
+		}
+		var svg = new SVGWriter(writer, decimals);
+		paintGraph(svg, graph, bounds, layout, valuesMetrics, axisNameMetrics, recorder);
+		svg.flush();
+		RenderRecorder.complete(recorder, listener, graph);
+	}
+
+	private static void paintGraph(SVGWriter svg,
+			Graph graph,
+			GraphBounds bounds,
+			LayoutGeometry layout,
+			TextMetrics valuesMetrics,
+			TextMetrics axisNameMetrics,
+			RenderRecorder recorder) throws IOException {
+		long frameStart = RenderRecorder.now(recorder);
+		var style = graph.style();
+		svg.append("<svg xmlns=\"http://www.w3.org/2000/svg\"")
+				.attribute("width", bounds.maxX())
+				.attribute("height", bounds.maxY())
+				.append(" viewBox=\"0 0 ").number(bounds.maxX()).append(' ').number(bounds.maxY()).append('"')
+				.append(" font-family=\"sans-serif\">");
+		svg.append("<rect")
+				.attribute("x", bounds.minX())
+				.attribute("y", bounds.minY())
+				.attribute("width", bounds.width())
+				.attribute("height", bounds.height())
+				.color("fill", style.colors().background())
+				.append("/>");
+		if (!layout.hasPlotArea()) {
+			svg.append("</svg>");
+			if (recorder != null) {
+				recorder.phase(RenderPhase.FRAME, frameStart);
+			}
+			return;
+		}
+		renderFrame(svg, graph, bounds, layout, valuesMetrics, axisNameMetrics, recorder);
+
+		var graphOffset = layout.graphOffset();
+		var graphSize = layout.graphSize();
+		double lineWidth = style.strokeWidth();
+		var clipId = "jlinegraph-plot-" + CLIP_IDS.incrementAndGet();
+		svg.append("<clipPath").attribute("id", clipId).append("><rect")
+				.attribute("x", graphOffset.width() - lineWidth)
+				.attribute("y", graphOffset.height() - lineWidth)
+				.attribute("width", graphSize.width() + lineWidth * 2d)
+				.attribute("height", graphSize.height() + lineWidth * 2d)
+				.append("/></clipPath>");
+		svg.append("<g clip-path=\"url(#").append(clipId).append(")\">");
+		renderZeroLines(svg, graph, layout);
+		if (recorder != null) {
+			recorder.phase(RenderPhase.FRAME, frameStart);
+		}
+		var seriesStyles = style.seriesStyles();
+		var seriesList = graph.data().series();
+		for (int i = 0; i < seriesList.size(); i++) {
+			if (seriesStyles.isEmpty()) {
+				throw new IllegalArgumentException("No styles found");
+			}
+			drawSeries(svg, graph, layout, seriesList.get(i), seriesStyles.get(i % seriesStyles.size()), recorder);
+		}
+		svg.append("</g>");
+
+		if (style.showLegend()) {
+			long legendStart = RenderRecorder.now(recorder);
+			drawSeriesLegend(svg, graph, layout, recorder);
+			if (recorder != null) {
+				recorder.phase(RenderPhase.LEGEND, legendStart);
+			}
+		}
+		svg.append("</svg>");
+	}
+
+	/**
+	 * Draws borders, axis names and value labels
+	 */
+	private static void renderFrame(SVGWriter svg,
+			Graph graph,
+			GraphBounds bounds,
+			LayoutGeometry layout,
+			TextMetrics valuesMetrics,
+			TextMetrics axisNameMetrics,
+			RenderRecorder recorder) throws IOException {
+		var style = graph.style();
+		var x = style.x();
+		var y = style.y();
+		var fgColor = style.colors().foreground();
+		double lineWidth = style.strokeWidth();
+		var graphOffset = layout.graphOffset();
+		var graphSize = layout.graphSize();
+
+		// Do not draw the border if the graph is fullscreen
+		if (graphOffset.width() > bounds.minX()
+				|| graphOffset.height() > bounds.minY()
+				|| graphSize.width() < bounds.width()
+				|| graphSize.height() < bounds.height()) {
+			svg.append("<rect")
+					.attribute("x", graphOffset.width())
+					.attribute("y", graphOffset.height())
+					.attribute("width", graphSize.width())
+					.attribute("height", graphSize.height())
+					.append(" fill=\"none\"")
+					.color("stroke", fgColor)
+					.attribute("stroke-width", lineWidth)
+					.append(" stroke-linejoin=\"round\"/>");
+		}
+		if (y.showName()) {
+			var center = layout.yAxisNameCenterOffset();
+			svg.append("<text")
+					.attribute("x", center.width())
+					.attribute("y", center.height() + axisNameMetrics.height() / 2d - axisNameMetrics.descent())
+					.attribute("font-size", axisNameMetrics.size())
+					.append(" text-anchor=\"middle\"")
+					.append(" transform=\"rotate(-90 ").number(center.width()).append(' ').number(center.height()).append(")\"")
+					.color("fill", fgColor);
+			text(svg, y.title(), recorder);
+		}
+		if (x.showName()) {
+			var center = layout.xAxisNameCenterOffset();
+			svg.append("<text")
+					.attribute("x", center.width())
+					.attribute("y", center.height() + axisNameMetrics.height() / 2d - axisNameMetrics.descent())
+					.attribute("font-size", axisNameMetrics.size())
+					.append(" text-anchor=\"middle\"")
+					.color("fill", fgColor);
+			text(svg, x.title(), recorder);
+		}
+
+		boolean showYTicks = y.mode().showRuler();
+		int yValueLineLength = layout.yValueLineLength();
+		if ((yValueLineLength > 0 && showYTicks) || y.mode().showLabels()) {
+			var yValuesOffset = layout.yValuesOffset();
+			double yValueLineOffset = layout.yValueLineOffset();
+			if (showYTicks && !layout.yLabels().isEmpty()) {
+				svg.append("<path d=\"");
+				for (LabelWithOffset label : layout.yLabels()) {
+					var lineStartOffsetY = yValuesOffset.height() + label.rasterOffset();
+					var currentLineOffsetX = label.formattedText().isBlank() ? yValueLineLength / 3d : 0;
+					var currentLineLength = yValueLineLength + (label.formattedText().isBlank() ? -yValueLineLength / 3d : 0);
+					svg.append('M').number(yValueLineOffset + currentLineOffsetX).number(lineStartOffsetY)
+							.append('h').number(currentLineLength);
+				}
+				svg.append('"');
+				strokeAttributes(svg, fgColor, lineWidth);
+			}
+			if (y.mode().showLabels() && !layout.yLabels().isEmpty()) {
+				svg.append("<g")
+						.attribute("font-size", valuesMetrics.size())
+						.append(" text-anchor=\"end\"")
+						.color("fill", fgColor)
+						.append('>');
+				for (LabelWithOffset label : layout.yLabels()) {
+					if (label.formattedText().isEmpty()) {
+						continue;
+					}
+					svg.append("<text")
+							.attribute("x", yValuesOffset.width() + layout.yLabelsAreaSize().width())
+							.attribute("y", yValuesOffset.height() + label.rasterOffset() + valuesMetrics.height() / 2d
+									- valuesMetrics.descent());
+					text(svg, label.formattedText(), recorder);
+				}
+				svg.append("</g>");
+			}
+		}
+
+		boolean showXTicks = x.mode().showRuler();
+		int xValueLineLength = layout.xValueLineLength();
+		if ((xValueLineLength > 0 && showXTicks) || x.mode().showLabels()) {
+			var xValuesOffset = layout.xValuesOffset();
+			double xValueLineOffset = layout.xValueLineOffset();
+			if (showXTicks && !layout.xLabels().isEmpty()) {
+				svg.append("<path d=\"");
+				for (LabelWithOffset label : layout.xLabels()) {
+					var lineStartOffsetX = xValuesOffset.width() + label.rasterOffset();
+					var currentLineLength = label.formattedText().isBlank() ? xValueLineLength / 1.5d : xValueLineLength;
+					svg.append('M').number(lineStartOffsetX).number(xValueLineOffset)
+							.append('v').number(currentLineLength);
+				}
+				svg.append('"');
+				strokeAttributes(svg, fgColor, lineWidth);
+			}
+			if (x.mode().showLabels() && !layout.xLabels().isEmpty()) {
+				svg.append("<g")
+						.attribute("font-size", valuesMetrics.size())
+						.append(" text-anchor=\"middle\"")
+						.color("fill", fgColor)
+						.append('>');
+				for (LabelWithOffset label : layout.xLabels()) {
+					if (label.formattedText().isEmpty()) {
+						continue;
+					}
+					svg.append("<text")
+							.attribute("x", xValuesOffset.width() + label.rasterOffset())
+							.attribute("y", xValuesOffset.height() + valuesMetrics.height());
+					text(svg, label.formattedText(), recorder);
+				}
+				svg.append("</g>");
+			}
+		}
+	}
+
+	private static void renderZeroLines(SVGWriter svg, Graph graph, LayoutGeometry layout) throws IOException {
+		var graphBounds = graph.data().bounds();
+		var graphOffset = layout.graphOffset();
+		var graphSize = layout.graphSize();
+		boolean horizontal = (graphBounds.minY() < 0 && graphBounds.maxY() > 0)
+				|| (graphBounds.minY() > 0 && graphBounds.maxY() < 0);
+		boolean vertical = (graphBounds.minX() < 0 && graphBounds.maxX() > 0)
+				|| (graphBounds.minX() > 0 && graphBounds.maxX() < 0);
+		if (!horizontal && !vertical) {
+			return;
+		}
+		svg.append("<path d=\"");
+		if (horizontal) {
+			svg.append('M').number(graphOffset.width()).number(SeriesGeometry.rasterZeroY(graphBounds, graphOffset, graphSize))
+					.append('h').number(graphSize.width());
+		}
+		if (vertical) {
+			double rasterZeroX = graphOffset.width()
+					+ ((-graphBounds.minX()) / (graphBounds.maxX() - graphBounds.minX())) * graphSize.width();
+			svg.append('M').number(rasterZeroX).number(graphOffset.height()).append('v').number(graphSize.height());
+		}
+		svg.append("\" fill=\"none\"")
+				.color("stroke", graph.style().colors().foreground().multiplyOpacity(0.5f))
+				.attribute("stroke-width", graph.style().strokeWidth())
+				.append(" stroke-linecap=\"round\" stroke-dasharray=\"2 3\"/>");
+	}
+
+	private static void drawSeries(SVGWriter svg,
+			Graph graph,
+			LayoutGeometry layout,
+			SeriesData series,
+			SeriesStyle style,
+			RenderRecorder recorder) throws IOException {
+		long pathStart = RenderRecorder.now(recorder);
+		var graphBounds = graph.data().bounds();
+		var graphOffset = layout.graphOffset();
+		var graphSize = layout.graphSize();
+		double strokeWidth = graph.style().strokeWidth();
+		var drawableArea = SeriesRanges.drawableArea(graphOffset.width() - strokeWidth,
+				graphOffset.height() - strokeWidth,
+				graphOffset.width() + graphSize.width() + strokeWidth,
+				graphOffset.height() + graphSize.height() + strokeWidth,
+				SeriesRanges.strokeMargin(strokeWidth * style.lineWeight(),
+						strokeWidth * 2d * style.pointsWeight() * style.markerShape().extent()
+				)
+		);
+		boolean dense = style.downsampling() == Downsampling.MIN_MAX
+				&& SeriesGeometry.isDense(series, graphBounds, graphSize);
+		series = SeriesRanges.clipRange(series, graphBounds, graphOffset, graphSize,
+				drawableArea.getMinX(),
+				drawableArea.getMaxX(),
+				style
+		);
+		int size = series.columns().size();
+		var xs = new double[size];
+		var ys = new double[size];
+		double rasterMinY = SeriesGeometry.rasterZeroY(graphBounds, graphOffset, graphSize);
+		SeriesGeometry.project(series, graphBounds, graphOffset, graphSize, xs, ys);
+
+		if (style.density() != Density.NONE) {
+			drawDensity(svg, graph, graphOffset, graphSize, xs, ys, size, style, recorder);
+			if (recorder != null) {
+				recorder.phase(RenderPhase.SERIES_PATH, pathStart);
+				recorder.series(size, size, 0, 0);
+			}
+			return;
+		}
+
+		int verticesIn = size;
+		int pathSegments = 0;
+		int markers = 0;
+		if (style.pointsWeight() != 0 && size > 0) {
+			long paintStart = RenderRecorder.now(recorder);
+			markers = size;
+			double radius = strokeWidth * 2d * style.pointsWeight();
+			svg.append("<path d=\"");
+			var markerShape = style.markerShape();
+			for (int i = 0; i < size; i++) {
+				if (markerShape == MarkerShape.CIRCLE) {
+					svg.circle(xs[i], ys[i], radius);
+				} else {
+					svg.path(markerShape.shape(xs[i], ys[i], radius).getPathIterator(null));
+				}
+			}
+			svg.append('"').color("fill", style.color()).append("/>");
+			if (recorder != null) {
+				recorder.nested(RenderPhase.SERIES_PAINT, RenderPhase.SERIES_PATH, paintStart);
+			}
+		}
+		if ((style.lineWeight() != 0 || style.areaOpacity() > 0d) && size > 0) {
+			size = SeriesGeometry.downsample(xs, ys, size, style.downsampling(), dense, graphSize);
+			var paths = SeriesGeometry.buildPaths(xs, ys, size, style.smoothness(), series.isFunction(), rasterMinY,
+					drawableArea
+			);
+			pathSegments = paths.segments();
+			long paintStart = RenderRecorder.now(recorder);
+			if (style.areaOpacity() > 0d) {
+				svg.append("<path d=\"").path(paths.area().getPathIterator(null)).append('"')
+						.color("fill", style.color().multiplyOpacity((float) style.areaOpacity()))
+						.append("/>");
+			}
+			if (style.lineWeight() != 0) {
+				svg.append("<path d=\"").path(paths.line().getPathIterator(null)).append("\" fill=\"none\"")
+						.color("stroke", style.color())
+						.attribute("stroke-width", strokeWidth * style.lineWeight())
+						.append(" stroke-linecap=\"round\" stroke-linejoin=\"round\"/>");
+			}
+			if (recorder != null) {
+				recorder.nested(RenderPhase.SERIES_PAINT, RenderPhase.SERIES_PATH, paintStart);
+			}
+		}
+		if (recorder != null) {
+			recorder.phase(RenderPhase.SERIES_PATH, pathStart);
+			recorder.series(verticesIn, size, pathSegments, markers);
+		}
+	}
+
+	/**
+	 * Counts the vertices that fall in each pixel of the plot and writes the counts as an embedded PNG image
+	 */
+	private static void drawDensity(SVGWriter svg,
+			Graph graph,
+			RasterSize graphOffset,
+			RasterSize graphSize,
+			double[] xs,
+			double[] ys,
+			int size,
+			SeriesStyle style,
+			RenderRecorder recorder) throws IOException {
+		var grid = DensityGrid.of(graphOffset, graphSize);
+		if (grid.length() == 0) {
+			return;
+		}
+		int[] counts = new int[grid.length()];
+		int maxCount = grid.count(xs, ys, size, counts);
+		if (maxCount == 0) {
+			return;
+		}
+		long paintStart = RenderRecorder.now(recorder);
+		grid.toARGB(counts, maxCount, style.density(), style.color(), graph.style().colors().foreground());
+		var png = new ByteArrayOutputStream();
+		DENSITY_ENCODER.write(counts, grid.width(), grid.height(), Channels.newChannel(png));
+		svg.append("<image")
+				.attribute("x", grid.x())
+				.attribute("y", grid.y())
+				.attribute("width", grid.width())
+				.attribute("height", grid.height())
+				.append(" image-rendering=\"pixelated\" href=\"data:image/png;base64,")
+				.append(Base64.getEncoder().encodeToString(png.toByteArray()))
+				.append("\"/>");
+		if (recorder != null) {
+			recorder.nested(RenderPhase.SERIES_PAINT, RenderPhase.SERIES_PATH, paintStart);
+		}
+	}
+
+	private static void drawSeriesLegend(SVGWriter svg,
+			Graph graph,
+			LayoutGeometry layout,
+			RenderRecorder recorder) throws IOException {
+		var style = graph.style();
+		var legendBounds = layout.legendBounds();
+		var seriesNameMetrics = layout.seriesNameMetrics();
+		var fgColor = style.colors().foreground();
+		double seriesPadding = LayoutGeometry.getSeriesPadding(seriesNameMetrics.height());
+		double seriesPreviewLineWidth = seriesNameMetrics.height() * 2;
+		double singleSeriesHeight = seriesNameMetrics.height();
+
+		double legendOffsetX = legendBounds.minX();
+		double legendOffsetY = legendBounds.minY();
+
+		svg.append("<rect")
+				.attribute("x", legendOffsetX)
+				.attribute("y", legendOffsetY)
+				.attribute("width", legendBounds.width())
+				.attribute("height", legendBounds.height())
+				.color("fill", style.colors().background().multiplyOpacity(0.75f))
+				.color("stroke", fgColor)
+				.attribute("stroke-width", style.strokeWidth())
+				.append(" stroke-linejoin=\"round\"/>");
+
+		svg.append("<g")
+				.attribute("font-size", seriesNameMetrics.size())
+				.attribute("stroke-width", style.strokeWidth() * 2d)
+				.append('>');
+		int i = 0;
+		for (SeriesData series : graph.data().series()) {
+			if (series.showInLegend()) {
+				if (style.seriesStyles().isEmpty()) {
+					throw new IllegalArgumentException("No styles found");
+				}
+				SeriesStyle seriesStyle = style.seriesStyles().get(i % style.seriesStyles().size());
+
+				var lineOffsetX = legendOffsetX + seriesPadding;
+				var currentOffsetY = legendOffsetY + seriesPadding / 2d
+						+ i * (seriesPadding / 2d + singleSeriesHeight + seriesPadding / 2d)
+						+ seriesPadding / 2d;
+				var lineOffsetY = currentOffsetY + singleSeriesHeight / 2d;
+				svg.append("<path d=\"M").number(lineOffsetX).number(lineOffsetY)
+						.append('h').number(seriesPreviewLineWidth)
+						.append('"')
+						.color("stroke", seriesStyle.color().overrideOpacity(1.0f))
+						.append("/>");
+				svg.append("<text")
+						.attribute("x", lineOffsetX + seriesPreviewLineWidth + seriesPadding)
+						.attribute("y", currentOffsetY + seriesNameMetrics.ascent())
+						.color("fill", fgColor);
+				text(svg, series.name(), recorder);
+				i++;
+			}
+		}
+		svg.append("</g>");
+	}
+
+	private static void strokeAttributes(SVGWriter svg, Color color, double width) throws IOException {
+		svg.append(" fill=\"none\"").color("stroke", color).attribute("stroke-width", width).append("/>");
+	}
+
+	/**
+	 * Closes the start tag of a text element, writes the text and closes the element
+	 */
+	private static void text(SVGWriter svg, String text, RenderRecorder recorder) throws IOException {
+		if (recorder != null) {
+			recorder.glyphs(text);
+		}
+		svg.append('>').text(text).append("</text>");
+	}
+
+	public interface SVGDrawer {
+
+		void writeTo(Writer writer) throws IOException;
+
+		/**
+		 * Writes the document encoded in UTF-8 and flushes the stream
+		 */
+		default void writeTo(OutputStream outputStream) throws IOException {
+			var writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+			writeTo(writer);
+			writer.flush();
+		}
+	}
+}
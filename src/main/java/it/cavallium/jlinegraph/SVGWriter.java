@@ -0,0 +1,210 @@
+package it.cavallium.jlinegraph;
+
+import java.awt.geom.PathIterator;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Buffered writer of SVG markup, with compact fixed-precision numbers and path data
+ */
+final class SVGWriter {
+
+	private final Writer out;
+	private final char[] buffer = new char[8192];
+	private int length;
+	private final long scale;
+	private final int decimals;
+	/**
+	 * True if the last character written can't be followed by a number without a separator
+	 */
+	private boolean needsSeparator;
+
+	/**
+	 * @param decimals maximum number of decimal digits of the numbers
+	 */
+	SVGWriter(Writer out, int decimals) {
+		this.out = out;
+		this.decimals = decimals;
+		long scale = 1;
+		for (int i = 0; i < decimals; i++) {
+			scale *= 10;
+		}
+		this.scale = scale;
+	}
+
+	SVGWriter append(String text) throws IOException {
+		for (int i = 0; i < text.length(); i++) {
+			append(text.charAt(i));
+		}
+		return this;
+	}
+
+	SVGWriter append(char c) throws IOException {
+		if (length == buffer.length) {
+			out.write(buffer, 0, length);
+			length = 0;
+		}
+		buffer[length++] = c;
+		needsSeparator = false;
+		return this;
+	}
+
+	/**
+	 * Writes the text escaping the XML special characters
+	 */
+	SVGWriter text(String text) throws IOException {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			switch (c) {
+				case '&' -> append("&amp;");
+				case '<' -> append("&lt;");
+				case '>' -> append("&gt;");
+				case '"' -> append("&quot;");
+				case '\'' -> append("&apos;");
+				default -> append(c);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Writes an attribute with a numeric value, preceded by a space
+	 */
+	SVGWriter attribute(String name, double value) throws IOException {
+		append(' ').append(name).append("=\"").number(value);
+		return append('"');
+	}
+
+	/**
+	 * Writes an attribute with a text value, preceded by a space
+	 */
+	SVGWriter attribute(String name, String value) throws IOException {
+		append(' ').append(name).append("=\"").text(value);
+		return append('"');
+	}
+
+	/**
+	 * Writes the color attribute and, if the color is translucent, its opacity attribute
+	 *
+	 * @param name name of the color attribute, the opacity attribute is named after it
+	 */
+	SVGWriter color(String name, Color color) throws IOException {
+		int argb = color.toARGB();
+		append(' ').append(name).append("=\"#");
+		for (int shift = 20; shift >= 0; shift -= 4) {
+			append(Character.forDigit((argb >>> shift) & 0xF, 16));
+		}
+		append('"');
+		if (color.alpha() < 1f) {
+			// The opacity doesn't depend on the precision of the coordinates
+			attribute(name + "-opacity", Float.toString(color.alpha()));
+		}
+		return this;
+	}
+
+	/**
+	 * Writes a number rounded to the decimals of this writer, without trailing zeros.
+	 * Inside path data, a space is added before it only if it's needed to separate it from the previous number
+	 */
+	SVGWriter number(double value) throws IOException {
+		long rounded = Double.isFinite(value) ? Math.round(value * scale) : 0;
+		boolean negative = rounded < 0;
+		if (negative) {
+			rounded = -rounded;
+		}
+		if (needsSeparator && !negative) {
+			append(' ');
+		}
+		if (negative) {
+			append('-');
+		}
+		long integer = rounded / scale;
+		long fraction = rounded % scale;
+		if (integer != 0 || fraction == 0) {
+			digits(integer);
+		}
+		if (fraction != 0) {
+			int digits = decimals;
+			while (fraction % 10 == 0) {
+				fraction /= 10;
+				digits--;
+			}
+			append('.');
+			for (long divisor = pow10(digits - 1); divisor > 0; divisor /= 10) {
+				append((char) ('0' + fraction / divisor % 10));
+			}
+		}
+		needsSeparator = true;
+		return this;
+	}
+
+	/**
+	 * Writes the path data of the iterator, skipping the repeated commands
+	 */
+	SVGWriter path(PathIterator iterator) throws IOException {
+		var coords = new double[6];
+		char lastCommand = 0;
+		while (!iterator.isDone()) {
+			int type = iterator.currentSegment(coords);
+			char command = switch (type) {
+				case PathIterator.SEG_MOVETO -> 'M';
+				case PathIterator.SEG_LINETO -> 'L';
+				case PathIterator.SEG_QUADTO -> 'Q';
+				case PathIterator.SEG_CUBICTO -> 'C';
+				default -> 'Z';
+			};
+			// Repeated commands are implicit, and so is a line after a move
+			if (command != lastCommand || command == 'M' || command == 'Z') {
+				append(command);
+			}
+			int points = switch (type) {
+				case PathIterator.SEG_MOVETO, PathIterator.SEG_LINETO -> 1;
+				case PathIterator.SEG_QUADTO -> 2;
+				case PathIterator.SEG_CUBICTO -> 3;
+				default -> 0;
+			};
+			for (int i = 0; i < points * 2; i++) {
+				number(coords[i]);
+			}
+			lastCommand = command == 'M' ? 'L' : command;
+			iterator.next();
+		}
+		return this;
+	}
+
+	/**
+	 * Writes the path data of a circle, as two arcs
+	 */
+	SVGWriter circle(double centerX, double centerY, double radius) throws IOException {
+		append('M').number(centerX - radius).number(centerY);
+		append('a').number(radius).number(radius).number(0).number(1).number(0).number(radius * 2).number(0);
+		append('a').number(radius).number(radius).number(0).number(1).number(0).number(-radius * 2).number(0);
+		return this;
+	}
+
+	/**
+	 * Writes the buffered characters to the underlying writer, without flushing it
+	 */
+	void flush() throws IOException {
+		out.write(buffer, 0, length);
+		length = 0;
+	}
+
+	private void digits(long value) throws IOException {
+		long divisor = 1;
+		while (divisor <= value / 10) {
+			divisor *= 10;
+		}
+		for (; divisor > 0; divisor /= 10) {
+			append((char) ('0' + value / divisor % 10));
+		}
+	}
+
+	private static long pow10(int exponent) {
+		long result = 1;
+		for (int i = 0; i < exponent; i++) {
+			result *= 10;
+		}
+		return result;
+	}
+}
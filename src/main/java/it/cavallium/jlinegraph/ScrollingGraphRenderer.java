@@ -0,0 +1,435 @@
+package it.cavallium.jlinegraph;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Renders a live graph that shows a window of fixed width ending at the greatest x coordinate, into its own image.
+ * <p>
+ * The x range of the window is {@code [right - windowWidth, right]}, where {@code right} is the maximum x of the
+ * data bounds of the graph rounded up to a whole pixel, so that moving the window shifts the plot by whole pixels.
+ * Only the maximum x and the y range of the data bounds are used.
+ * <p>
+ * The series are drawn into a cached plot layer. When the window moves forward and the series only received new
+ * vertices at their end, the layer is shifted left by the pixels that the window moved, and only the strip exposed
+ * on the right and the columns reached by the new vertices are redrawn. Background, borders, axis names and y value
+ * labels are drawn once into a cached frame layer, while x value labels, zero lines and legend are drawn again
+ * over them at every render. When the window moves by less than the plot width, the cost of a render doesn't
+ * depend on the number of vertices shown.
+ * <p>
+ * A series is considered appended to when the last vertex drawn previously is still inside it. Only functions
+ * whose vertices are sorted by x are scrolled; any other change to the series, to the style, to the bounds,
+ * to the y range or to the names shown in the legend redraws the whole layer, and so does a window that moves
+ * backwards or a series downsampled with {@link Downsampling#LTTB} or drawn with a {@link Density}.
+ * Vertices that left the window can be removed.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class ScrollingGraphRenderer {
+
+	private final GraphBounds bounds;
+	private final double windowWidth;
+	private final RenderListener listener;
+	private final BufferedImage image;
+	private final BufferedImage frame;
+	private GraphLayout frameLayout;
+	private GraphLayout layout;
+	private BufferedImage plot;
+	private Rectangle plotRegion;
+	/**
+	 * Right edge of the window, in pixels of the plot area from the origin of the x axis
+	 */
+	private long rightPixel;
+	private long drawnRightPixel;
+	/**
+	 * False if the right edge of the current window is not a whole pixel, because the plot width kept changing
+	 */
+	private boolean windowAligned;
+	private DrawnSeries[] drawnSeries;
+
+	/**
+	 * @param bounds bounds of the graph. The image goes from the origin to their bottom-right corner
+	 * @param windowWidth width of the x range shown
+	 */
+	public ScrollingGraphRenderer(GraphBounds bounds, double windowWidth) {
+		this(bounds, windowWidth, RenderListener.NONE);
+	}
+
+	/**
+	 * @param bounds bounds of the graph. The image goes from the origin to their bottom-right corner
+	 * @param windowWidth width of the x range shown
+	 * @param listener listener notified with the timings and counters of each render, scrolled or full
+	 */
+	public ScrollingGraphRenderer(GraphBounds bounds, double windowWidth, RenderListener listener) {
+		int width = (int) bounds.maxX();
+		int height = (int) bounds.maxY();
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("Invalid bounds: " + bounds);
+		}
+		if (!(windowWidth > 0) || !Double.isFinite(windowWidth)) {
+			throw new IllegalArgumentException("Invalid window width: " + windowWidth);
+		}
+		this.bounds = bounds;
+		this.windowWidth = windowWidth;
+		this.listener = listener;
+		this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		this.frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+	}
+
+	/**
+	 * Updates the image with the window ending at the current maximum x of the graph
+	 *
+	 * @return the image of this renderer, the same one at every render
+	 */
+	public BufferedImage render(Graph graph) {
+		var recorder = RenderRecorder.start(listener, graph);
+		var windowGraph = computeLayout(graph, recorder);
+		if (!layout.hasPlotArea() || layout.graphSize().width() <= 0) {
+			renderFrame(windowGraph, recorder);
+			restoreFrame(recorder);
+			invalidatePlot();
+		} else {
+			boolean frameChanged = !isFrameValid();
+			if (frameChanged) {
+				renderFrame(windowGraph, recorder);
+			}
+			if (frameChanged || !scrollPlot(windowGraph, recorder)) {
+				renderPlot(windowGraph, recorder);
+			}
+			compose(windowGraph, recorder);
+			if (!windowAligned) {
+				// Shifting by whole pixels can't reach the next window from this one
+				invalidatePlot();
+			}
+		}
+		RenderRecorder.complete(recorder, listener, graph);
+		return image;
+	}
+
+	/**
+	 * Forces the next render to redraw the whole image
+	 */
+	public void invalidate() {
+		frameLayout = null;
+		invalidatePlot();
+	}
+
+	public BufferedImage image() {
+		return image;
+	}
+
+	public GraphBounds bounds() {
+		return bounds;
+	}
+
+	public double windowWidth() {
+		return windowWidth;
+	}
+
+	/**
+	 * Computes the layout of the window, quantizing its right edge to a whole pixel of the plot area
+	 *
+	 * @return the graph limited to the window
+	 */
+	private Graph computeLayout(Graph graph, RenderRecorder recorder) {
+		var graphics2D = frame.createGraphics();
+		try {
+			var resources = layout != null && layout.style().equals(graph.style()) ? layout.resources() : null;
+			// The width of the plot depends on the x value labels, so it's guessed from the previous layout
+			double plotWidth = layout != null && resources != null ? layout.graphSize().width() : 0d;
+			Graph windowGraph = null;
+			windowAligned = false;
+			for (int attempt = 0; attempt < 2; attempt++) {
+				double maxX = graph.data().bounds().maxX();
+				if (plotWidth > 0) {
+					rightPixel = (long) Math.ceil(maxX / (windowWidth / plotWidth));
+					maxX = rightPixel * (windowWidth / plotWidth);
+				}
+				var dataBounds = graph.data().bounds();
+				windowGraph = new Graph(graph.name(),
+						new GraphData(graph.data().series(),
+								new GraphBounds(maxX - windowWidth, dataBounds.minY(), maxX, dataBounds.maxY())
+						),
+						graph.style()
+				);
+				if (resources != null) {
+					layout = GraphLayout.compute(graphics2D, windowGraph, bounds, resources, recorder);
+				} else {
+					layout = GraphLayout.compute(graphics2D, windowGraph, bounds, recorder);
+					resources = layout.resources();
+				}
+				if (layout.graphSize().width() == plotWidth) {
+					windowAligned = true;
+					break;
+				}
+				plotWidth = layout.graphSize().width();
+				// A plot of a different width can't be scrolled
+				invalidatePlot();
+			}
+			return windowGraph;
+		} finally {
+			graphics2D.dispose();
+		}
+	}
+
+	/**
+	 * @return true if the frame layer and the plot layer have been drawn with the same style, plot area,
+	 * y range, y value labels and legend names of the current layout
+	 */
+	private boolean isFrameValid() {
+		return frameLayout != null
+				&& frameLayout.style().equals(layout.style())
+				&& frameLayout.graphOffset().equals(layout.graphOffset())
+				&& frameLayout.graphSize().equals(layout.graphSize())
+				&& frameLayout.dataBounds().minY() == layout.dataBounds().minY()
+				&& frameLayout.dataBounds().maxY() == layout.dataBounds().maxY()
+				&& frameLayout.yLabels().equals(layout.yLabels())
+				&& frameLayout.legendNames().equals(layout.legendNames());
+	}
+
+	private void renderFrame(Graph graph, RenderRecorder recorder) {
+		var graphics2D = frame.createGraphics();
+		try {
+			AWTGraphRenderer.setRenderingHints(graphics2D);
+			AWTGraphRenderer.renderFrame(graphics2D, graph, layout, false, recorder);
+		} finally {
+			graphics2D.dispose();
+		}
+		frameLayout = layout;
+	}
+
+	private void invalidatePlot() {
+		plot = null;
+		drawnSeries = null;
+	}
+
+	/**
+	 * Redraws all the series into a new plot layer
+	 */
+	private void renderPlot(Graph graph, RenderRecorder recorder) {
+		plotRegion = AWTGraphRenderer.getPlotClip(layout).getBounds()
+				.intersection(new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+		if (plotRegion.isEmpty()) {
+			invalidatePlot();
+			return;
+		}
+		var seriesList = graph.data().series();
+		drawnSeries = new DrawnSeries[seriesList.size()];
+		for (int i = 0; i < drawnSeries.length; i++) {
+			drawnSeries[i] = DrawnSeries.of(seriesList.get(i));
+		}
+		plot = new BufferedImage(plotRegion.width, plotRegion.height, BufferedImage.TYPE_INT_ARGB);
+		paintSeries(graph, new Rectangle(plotRegion), SeriesRanges.strokeMargin(graph, layout), recorder);
+	}
+
+	/**
+	 * Shifts the plot layer by the pixels that the window moved and redraws the exposed strip
+	 * and the columns reached by the new vertices
+	 *
+	 * @return false if the series changed in a way that needs the whole layer to be redrawn
+	 */
+	private boolean scrollPlot(Graph graph, RenderRecorder recorder) {
+		if (plot == null) {
+			return false;
+		}
+		var seriesList = graph.data().series();
+		var styles = graph.style().seriesStyles();
+		if (seriesList.size() != drawnSeries.length || styles.isEmpty()) {
+			return false;
+		}
+		long shift = rightPixel - drawnRightPixel;
+		if (shift < 0 || shift >= plotRegion.width) {
+			return false;
+		}
+		int dx = (int) shift;
+		double dirtyMinX = Double.POSITIVE_INFINITY;
+		var updatedSeries = new DrawnSeries[drawnSeries.length];
+		for (int i = 0; i < drawnSeries.length; i++) {
+			var series = seriesList.get(i);
+			var drawn = drawnSeries[i];
+			if (!series.isFunction()
+					|| !drawn.sorted()
+					|| styles.get(i % styles.size()).downsampling() == Downsampling.LTTB
+					|| styles.get(i % styles.size()).density() != Density.NONE) {
+				return false;
+			}
+			var columns = series.columns();
+			int size = columns.size();
+			int lastDrawn = -1;
+			if (drawn.size() > 0) {
+				lastDrawn = SeriesRanges.lowerBound(columns, Math.nextUp(drawn.lastX())) - 1;
+				if (lastDrawn < 0
+						|| Double.compare(columns.x(lastDrawn), drawn.lastX()) != 0
+						|| Double.compare(columns.y(lastDrawn), drawn.lastY()) != 0) {
+					return false;
+				}
+			}
+			for (int j = Math.max(1, lastDrawn + 1); j < size; j++) {
+				if (!(columns.x(j - 1) <= columns.x(j))) {
+					return false;
+				}
+			}
+			updatedSeries[i] = DrawnSeries.of(size, columns);
+			if (lastDrawn + 1 < size) {
+				// Appending a vertex changes the curve of a smoothed function up to the second-last vertex drawn
+				dirtyMinX = Math.min(dirtyMinX, columns.x(Math.max(0, lastDrawn - 1)));
+			}
+		}
+		drawnSeries = updatedSeries;
+		if (dx == 0 && dirtyMinX == Double.POSITIVE_INFINITY) {
+			return true;
+		}
+
+		double margin = SeriesRanges.strokeMargin(graph, layout);
+		int plotRight = plotRegion.x + plotRegion.width;
+		double stripMinX = plotRight - dx;
+		if (dirtyMinX != Double.POSITIVE_INFINITY) {
+			stripMinX = Math.min(stripMinX, toRasterX(dirtyMinX));
+		}
+		int stripX = Math.max(plotRegion.x, (int) Math.floor(stripMinX - margin));
+		if (stripX >= plotRight) {
+			return true;
+		}
+		// The columns near the left edge of the plot received pixels drawn far from the edge, that a full render
+		// would have clipped or drawn from other vertices, so they are redrawn too
+		int edgeWidth = dx == 0 ? 0 : Math.min(stripX - plotRegion.x,
+				(int) Math.ceil(AWTGraphRenderer.getPlotClip(layout).getMinX() + margin) - plotRegion.x
+		);
+		long compositeStart = RenderRecorder.now(recorder);
+		int[] pixels = ((DataBufferInt) plot.getRaster().getDataBuffer()).getData();
+		int width = plotRegion.width;
+		int stripStart = stripX - plotRegion.x;
+		for (int y = 0; y < plotRegion.height; y++) {
+			int row = y * width;
+			System.arraycopy(pixels, row + dx, pixels, row, width - dx);
+			Arrays.fill(pixels, row, row + edgeWidth, 0);
+			Arrays.fill(pixels, row + stripStart, row + width, 0);
+		}
+		if (recorder != null) {
+			recorder.phase(RenderPhase.COMPOSITE, compositeStart);
+		}
+		if (edgeWidth > 0) {
+			paintSeries(graph, new Rectangle(plotRegion.x, plotRegion.y, edgeWidth, plotRegion.height), margin,
+					recorder);
+		}
+		paintSeries(graph, new Rectangle(stripX, plotRegion.y, plotRight - stripX, plotRegion.height), margin,
+				recorder);
+		return true;
+	}
+
+	/**
+	 * Draws the series into the plot layer, clipped to a region of the image
+	 *
+	 * @param margin distance from the region of the farthest pixel drawn by a vertex
+	 */
+	private void paintSeries(Graph graph, Rectangle region, double margin, RenderRecorder recorder) {
+		var graphics2D = plot.createGraphics();
+		try {
+			AWTGraphRenderer.setRenderingHints(graphics2D);
+			graphics2D.translate(-plotRegion.x, -plotRegion.y);
+			graphics2D.clip(region);
+			var seriesGraphics2D = AWTGraphRenderer.createPlotGraphics(graphics2D, graph, layout);
+			try {
+				var seriesList = graph.data().series();
+				var styles = graph.style().seriesStyles();
+				for (int i = 0; i < seriesList.size(); i++) {
+					var series = seriesList.get(i);
+					if (drawnSeries[i].sorted() && styles.get(i % styles.size()).downsampling() != Downsampling.LTTB) {
+						// The whole layer too keeps the vertices just outside the window, whose lines reach its edges
+						series = SeriesRanges.visibleRange(series, toDataX(region.x - margin), toDataX(region.getMaxX() + margin));
+					}
+					AWTGraphRenderer.renderSeries(seriesGraphics2D, graph, layout, i, series, null, recorder);
+				}
+			} finally {
+				seriesGraphics2D.dispose();
+			}
+		} finally {
+			graphics2D.dispose();
+		}
+		drawnRightPixel = rightPixel;
+	}
+
+	/**
+	 * Copies the frame layer into the image, then draws x value labels, zero lines, plot layer and legend
+	 */
+	private void compose(Graph graph, RenderRecorder recorder) {
+		restoreFrame(recorder);
+		var graphics2D = image.createGraphics();
+		try {
+			AWTGraphRenderer.setRenderingHints(graphics2D);
+			long frameStart = RenderRecorder.now(recorder);
+			AWTGraphRenderer.renderXAxisLabels(graphics2D, graph, layout, recorder);
+			if (recorder != null) {
+				recorder.phase(RenderPhase.FRAME, frameStart);
+			}
+			var plotGraphics2D = AWTGraphRenderer.createPlotGraphics(graphics2D, graph, layout);
+			try {
+				AWTGraphRenderer.renderZeroLines(plotGraphics2D, graph, layout, recorder);
+				if (plot != null) {
+					long compositeStart = RenderRecorder.now(recorder);
+					plotGraphics2D.drawImage(plot, plotRegion.x, plotRegion.y, null);
+					if (recorder != null) {
+						recorder.phase(RenderPhase.COMPOSITE, compositeStart);
+					}
+				}
+			} finally {
+				plotGraphics2D.dispose();
+			}
+			AWTGraphRenderer.renderLegend(graphics2D, graph, layout, recorder);
+		} finally {
+			graphics2D.dispose();
+		}
+	}
+
+	private void restoreFrame(RenderRecorder recorder) {
+		long frameStart = RenderRecorder.now(recorder);
+		int[] source = ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+		int[] target = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		System.arraycopy(source, 0, target, 0, target.length);
+		if (recorder != null) {
+			recorder.phase(RenderPhase.FRAME, frameStart);
+		}
+	}
+
+	private double toRasterX(double x) {
+		var dataBounds = layout.dataBounds();
+		return layout.graphOffset().width()
+				+ ((x - dataBounds.minX()) / (dataBounds.maxX() - dataBounds.minX())) * layout.graphSize().width();
+	}
+
+	private double toDataX(double rasterX) {
+		var dataBounds = layout.dataBounds();
+		return dataBounds.minX()
+				+ (rasterX - layout.graphOffset().width()) / layout.graphSize().width() * (dataBounds.maxX() - dataBounds.minX());
+	}
+
+	/**
+	 * State of a series at the time it was drawn
+	 *
+	 * @param sorted true if the series is a function and its vertices are sorted by x
+	 */
+	private record DrawnSeries(int size, boolean sorted, double lastX, double lastY) {
+
+		static DrawnSeries of(SeriesData series) {
+			var columns = series.columns();
+			boolean sorted = series.isFunction() && columns.isSortedByX();
+			return new DrawnSeries(columns.size(), sorted, 0d, 0d).withLast(columns);
+		}
+
+		/**
+		 * @return the state of a sorted function
+		 */
+		static DrawnSeries of(int size, VertexColumns columns) {
+			return new DrawnSeries(size, true, 0d, 0d).withLast(columns);
+		}
+
+		private DrawnSeries withLast(VertexColumns columns) {
+			if (size == 0) {
+				return this;
+			}
+			return new DrawnSeries(size, sorted, columns.x(size - 1), columns.y(size - 1));
+		}
+	}
+}
@@ -2,13 +2,28 @@ package it.cavallium.jlinegraph;
 
 import java.util.List;
 
-public record SeriesData(List<Vertex> vertices, boolean isFunction, String name, boolean showInLegend) {
+public record SeriesData(VertexColumns columns, boolean isFunction, String name, boolean showInLegend) {
+
+	public SeriesData(List<Vertex> vertices, boolean isFunction, String name, boolean showInLegend) {
+		this(VertexColumns.of(vertices), isFunction, name, showInLegend);
+	}
 
 	public SeriesData(List<Vertex> vertices, boolean isFunction, String name) {
 		this(vertices, isFunction, name, true);
 	}
 
+	public SeriesData(VertexColumns columns, boolean isFunction, String name) {
+		this(columns, isFunction, name, true);
+	}
+
 	public SeriesData {
 		showInLegend = showInLegend && !name.isBlank();
 	}
+
+	/**
+	 * @return a {@link List} view of the vertices
+	 */
+	public List<Vertex> vertices() {
+		return columns.asList();
+	}
 }
@@ -0,0 +1,107 @@
+package it.cavallium.jlinegraph;
+
+/**
+ * Downsampling algorithms working in place on raster coordinates sorted by x
+ */
+final class SeriesDownsampler {
+
+	private SeriesDownsampler() {
+	}
+
+	/**
+	 * Keeps the first, last, minimum and maximum point of each pixel column,
+	 * in their original order.
+	 *
+	 * @return the number of points kept at the start of the arrays
+	 */
+	static int minMax(double[] xs, double[] ys, int size) {
+		int out = 0;
+		int columnStart = 0;
+		while (columnStart < size) {
+			double column = Math.floor(xs[columnStart]);
+			int minIndex = columnStart;
+			int maxIndex = columnStart;
+			int columnEnd = columnStart + 1;
+			while (columnEnd < size && Math.floor(xs[columnEnd]) == column) {
+				if (ys[columnEnd] < ys[minIndex]) {
+					minIndex = columnEnd;
+				}
+				if (ys[columnEnd] > ys[maxIndex]) {
+					maxIndex = columnEnd;
+				}
+				columnEnd++;
+			}
+			int lastIndex = columnEnd - 1;
+			int lowIndex = Math.min(minIndex, maxIndex);
+			int highIndex = Math.max(minIndex, maxIndex);
+			out = copy(xs, ys, columnStart, out);
+			if (lowIndex != columnStart) {
+				out = copy(xs, ys, lowIndex, out);
+			}
+			if (highIndex != lowIndex && highIndex != lastIndex) {
+				out = copy(xs, ys, highIndex, out);
+			}
+			if (lastIndex != columnStart && lastIndex != lowIndex) {
+				out = copy(xs, ys, lastIndex, out);
+			}
+			columnStart = columnEnd;
+		}
+		return out;
+	}
+
+	/**
+	 * Largest-Triangle-Three-Buckets downsampling. The first and last points are always kept,
+	 * the others are split in buckets and the point that forms the largest triangle with
+	 * the previously kept point and the average of the next bucket is kept from each bucket.
+	 *
+	 * @param threshold number of points to keep, at least 3
+	 * @return the number of points kept at the start of the arrays
+	 */
+	static int lttb(double[] xs, double[] ys, int size, int threshold) {
+		if (threshold >= size || threshold < 3) {
+			return size;
+		}
+		double every = (double) (size - 2) / (threshold - 2);
+		int a = 0;
+		double aX = xs[0];
+		double aY = ys[0];
+		int out = 1;
+		for (int bucket = 0; bucket < threshold - 2; bucket++) {
+			int avgStart = (int) Math.floor((bucket + 1) * every) + 1;
+			int avgEnd = Math.min((int) Math.floor((bucket + 2) * every) + 1, size);
+			double avgX = 0;
+			double avgY = 0;
+			for (int i = avgStart; i < avgEnd; i++) {
+				avgX += xs[i];
+				avgY += ys[i];
+			}
+			int avgLength = avgEnd - avgStart;
+			avgX /= avgLength;
+			avgY /= avgLength;
+
+			int rangeStart = (int) Math.floor(bucket * every) + 1;
+			int rangeEnd = (int) Math.floor((bucket + 1) * every) + 1;
+			double maxArea = -1;
+			int next = rangeStart;
+			for (int i = rangeStart; i < rangeEnd; i++) {
+				// Double of the triangle area, the constant factor does not change the comparison
+				double area = Math.abs((aX - avgX) * (ys[i] - aY) - (aX - xs[i]) * (avgY - aY));
+				if (area > maxArea) {
+					maxArea = area;
+					next = i;
+				}
+			}
+			a = next;
+			aX = xs[a];
+			aY = ys[a];
+			out = copy(xs, ys, a, out);
+		}
+		return copy(xs, ys, size - 1, out);
+	}
+
+	private static int copy(double[] xs, double[] ys, int from, int to) {
+		xs[to] = xs[from];
+		ys[to] = ys[from];
+		return to + 1;
+	}
+}
@@ -0,0 +1,260 @@
+package it.cavallium.jlinegraph;
+
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Raster geometry of a series, shared by the renderers: projection, sorting, downsampling and paths
+ */
+final class SeriesGeometry {
+
+	private SeriesGeometry() {
+	}
+
+	/**
+	 * @return the raster y coordinate of the value 0
+	 */
+	static double rasterZeroY(GraphBounds graphBounds, RasterSize graphOffset, RasterSize graphSize) {
+		return graphOffset.height() + graphSize.height()
+				- ((0 - graphBounds.minY()) / (graphBounds.maxY() - graphBounds.minY())) * graphSize.height();
+	}
+
+	/**
+	 * Converts the vertices to raster coordinates, sorted by x if the series is a function
+	 *
+	 * @param xs array that receives the raster x coordinates, at least as long as the series
+	 * @param ys array that receives the raster y coordinates, at least as long as the series
+	 */
+	static void project(SeriesData series,
+			GraphBounds graphBounds,
+			RasterSize graphOffset,
+			RasterSize graphSize,
+			double[] xs,
+			double[] ys) {
+		var columns = series.columns();
+		int size = columns.size();
+		for (int i = 0; i < size; i++) {
+			xs[i] = graphOffset.width()
+					+ ((columns.x(i) - graphBounds.minX()) / (graphBounds.maxX() - graphBounds.minX())) * graphSize.width();
+			ys[i] = graphOffset.height() + graphSize.height()
+					- ((columns.y(i) - graphBounds.minY()) / (graphBounds.maxY() - graphBounds.minY())) * graphSize.height();
+		}
+		// Sort points if it's a function
+		if (series.isFunction()) {
+			sortByX(xs, ys, size);
+		}
+	}
+
+	/**
+	 * Builds the line of the series and the area between the line and the value 0,
+	 * sharing the raster points without copying them
+	 *
+	 * @param size number of points at the start of the arrays
+	 * @param rasterMinY raster y coordinate of the value 0
+	 * @param clip raster area that the series can draw into, enlarged by the stroke margin, or null.
+	 * The points of a line that is not smoothed are removed when they only have segments outside it
+	 */
+	static SeriesPath buildPaths(double[] xs,
+			double[] ys,
+			int size,
+			double smoothness,
+			boolean isFunction,
+			double rasterMinY,
+			Rectangle2D clip) {
+		if (smoothness > 0d && size >= 3) {
+			var controls = new double[4 * (size - 1)];
+			double SMOOTHNESS = smoothness / 2d; // higher is smoother, but don't go over 0.5
+
+			if (!isFunction) {
+				final boolean closedPath = xs[size - 1] == xs[0] && ys[size - 1] == ys[0];
+				Bezier.segmentControls(xs, ys, size, closedPath, controls);
+				return new SeriesPath(xs, ys, size, controls, !closedPath, false, rasterMinY);
+			} else {
+				// calculate smooth path
+				double lX = 0, lY = 0;
+				for (int pointIndex=1; pointIndex<size; pointIndex++) {
+					double px = xs[pointIndex], py = ys[pointIndex];	// current point
+
+					// first control point
+					double p0x = xs[pointIndex-1], p0y = ys[pointIndex-1];	// previous point
+					double d0 = Math.sqrt(Math.pow(px - p0x, 2)+Math.pow(py-p0y, 2));	// distance between p and p0
+					double x1 = Math.min(p0x + lX*d0, (p0x + px)/2); 	// min is used to avoid going too much right
+					double y1 = p0y + lY*d0;
+
+					// second control point
+					int nextIndex = pointIndex+1 < size ? pointIndex+1 : pointIndex;
+					double p1x = xs[nextIndex], p1y = ys[nextIndex];	// next point
+					double d1 = Math.sqrt(Math.pow(p1x - p0x, 2)+Math.pow(p1y-p0y, 2));	// distance between p1 and p0 (length of reference line)
+					lX = (p1x-p0x)/d1*SMOOTHNESS;		// (lX,lY) is the slope of the reference line
+					lY = (p1y-p0y)/d1*SMOOTHNESS;
+					double x2 = Math.max(px - lX*d0, (p0x + px)/2);	// max is used to avoid going too much left
+					double y2 = py - lY*d0;
+
+					// add curve
+					int offset = (pointIndex - 1) * 4;
+					controls[offset] = x1;
+					controls[offset + 1] = y1;
+					controls[offset + 2] = x2;
+					controls[offset + 3] = y2;
+				}
+				return new SeriesPath(xs, ys, size, controls, false, true, rasterMinY);
+			}
+		} else {
+			if (clip != null) {
+				size = removeOutside(xs, ys, size, clip);
+			}
+			return new SeriesPath(xs, ys, size, null, false, true, rasterMinY);
+		}
+	}
+
+	/**
+	 * Removes the points that are outside the same border of the clip as the previous point kept and the next point,
+	 * like the trivial rejection of Cohen-Sutherland. The line from the previous point to the next one
+	 * stays outside that border, and so does the difference between the old area and the new one,
+	 * so the polyline and its area look the same inside the clip. The first and the last point are kept
+	 *
+	 * @return the number of points left at the start of the arrays
+	 */
+	static int removeOutside(double[] xs, double[] ys, int size, Rectangle2D clip) {
+		if (size < 3) {
+			return size;
+		}
+		double minX = clip.getMinX();
+		double minY = clip.getMinY();
+		double maxX = clip.getMaxX();
+		double maxY = clip.getMaxY();
+		int keptCode = outCode(xs[0], ys[0], minX, minY, maxX, maxY);
+		int code = outCode(xs[1], ys[1], minX, minY, maxX, maxY);
+		int kept = 1;
+		for (int i = 1; i < size - 1; i++) {
+			int nextCode = outCode(xs[i + 1], ys[i + 1], minX, minY, maxX, maxY);
+			if ((keptCode & code & nextCode) == 0) {
+				xs[kept] = xs[i];
+				ys[kept] = ys[i];
+				kept++;
+				keptCode = code;
+			}
+			code = nextCode;
+		}
+		xs[kept] = xs[size - 1];
+		ys[kept] = ys[size - 1];
+		return kept + 1;
+	}
+
+	/**
+	 * @return the borders of the rectangle that the point is outside of, one bit each, 0 if it's inside or NaN
+	 */
+	private static int outCode(double x, double y, double minX, double minY, double maxX, double maxY) {
+		int code = 0;
+		if (x < minX) {
+			code |= 1;
+		} else if (x > maxX) {
+			code |= 2;
+		}
+		if (y < minY) {
+			code |= 4;
+		} else if (y > maxY) {
+			code |= 8;
+		}
+		return code;
+	}
+
+	/**
+	 * Reduces the raster points of a series to the ones that are visible at the plot resolution.
+	 * Runs before smoothing, so the number of curve segments is bounded by the plot width
+	 *
+	 * @param dense result of {@link #isDense(SeriesData, GraphBounds, RasterSize)} for the whole series,
+	 * that decides if {@link Downsampling#MIN_MAX} decimates the points
+	 * @return the number of points left at the start of the arrays
+	 */
+	static int downsample(double[] xs,
+			double[] ys,
+			int size,
+			Downsampling downsampling,
+			boolean dense,
+			RasterSize graphSize) {
+		return switch (downsampling) {
+			case NONE -> size;
+			case MIN_MAX -> dense ? SeriesDownsampler.minMax(xs, ys, size) : size;
+			case LTTB -> SeriesDownsampler.lttb(xs, ys, size, Math.max(3, (int) Math.ceil(graphSize.width())));
+		};
+	}
+
+	/**
+	 * Each pixel column keeps at most 4 points with {@link Downsampling#MIN_MAX}, there's nothing to gain below
+	 * that density. The density is measured on the whole series, not on the range of it that is drawn,
+	 * so the renders of a part of the plot decimate the same way as a render of all of it
+	 *
+	 * @return true if the series is a function with more than 4 vertices inside the plot
+	 * for each pixel column they span
+	 */
+	static boolean isDense(SeriesData series, GraphBounds graphBounds, RasterSize graphSize) {
+		var columns = series.columns();
+		if (!series.isFunction() || columns.size() == 0) {
+			return false;
+		}
+		int count;
+		double span;
+		if (columns.isSortedByX()) {
+			int start = SeriesRanges.lowerBound(columns, graphBounds.minX());
+			int end = SeriesRanges.lowerBound(columns, Math.nextUp(graphBounds.maxX()));
+			count = end - start;
+			span = count > 0 ? columns.x(end - 1) - columns.x(start) : 0d;
+		} else {
+			var bounds = columns.bounds();
+			count = columns.size();
+			span = Math.min(bounds.maxX(), graphBounds.maxX()) - Math.max(bounds.minX(), graphBounds.minX());
+		}
+		double dataWidth = graphBounds.maxX() - graphBounds.minX();
+		double spannedColumns = dataWidth > 0d ? Math.max(0d, span) / dataWidth * graphSize.width() + 1d : 1d;
+		return count > spannedColumns * 4d;
+	}
+
+	/**
+	 * Stable sort of the first raster points by x, done in place on the two arrays
+	 */
+	static void sortByX(double[] xs, double[] ys, int size) {
+		boolean sorted = true;
+		for (int i = 1; i < size; i++) {
+			if (xs[i - 1] > xs[i]) {
+				sorted = false;
+				break;
+			}
+		}
+		if (sorted) {
+			return;
+		}
+		var srcX = xs;
+		var srcY = ys;
+		var dstX = new double[size];
+		var dstY = new double[size];
+		for (int width = 1; width < size; width *= 2) {
+			for (int from = 0; from < size; from += 2 * width) {
+				int mid = Math.min(from + width, size);
+				int to = Math.min(from + 2 * width, size);
+				int left = from;
+				int right = mid;
+				for (int k = from; k < to; k++) {
+					if (left < mid && (right >= to || srcX[left] <= srcX[right])) {
+						dstX[k] = srcX[left];
+						dstY[k] = srcY[left];
+						left++;
+					} else {
+						dstX[k] = srcX[right];
+						dstY[k] = srcY[right];
+						right++;
+					}
+				}
+			}
+			var tmpX = srcX;
+			var tmpY = srcY;
+			srcX = dstX;
+			srcY = dstY;
+			dstX = tmpX;
+			dstY = tmpY;
+		}
+		if (srcX != xs) {
+			System.arraycopy(srcX, 0, xs, 0, size);
+			System.arraycopy(srcY, 0, ys, 0, size);
+		}
+	}
+}
@@ -0,0 +1,328 @@
+package it.cavallium.jlinegraph;
+
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.FlatteningPathIterator;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Line of a series and area between the line and the value 0, stored once as primitive coordinates.
+ * <p>
+ * The vertices are the raster points of the series, not copied. A smoothed line also has the two control points
+ * of each segment, a polyline has none. {@link #line()} and {@link #area()} are views that read the same
+ * coordinates, so nothing is built for a component that is not drawn.
+ */
+final class SeriesPath {
+
+	private final double[] xs;
+	private final double[] ys;
+	private final int size;
+	/**
+	 * x1, y1, x2 and y2 of the curve from each vertex to the next one, or null for a polyline
+	 */
+	private final double[] controls;
+	/**
+	 * True if the first and the last curve are quadratic, with only x1 and y1
+	 */
+	private final boolean quadraticEnds;
+	/**
+	 * True if the area goes down to the value 0 at the first and at the last vertex,
+	 * false if it's closed by a straight segment from the last vertex to the first one
+	 */
+	private final boolean toBaseline;
+	private final double baselineY;
+	private final Shape line = new View(false);
+	private final Shape area = new View(true);
+
+	/**
+	 * @param size number of vertices at the start of the arrays
+	 * @param controls control points of the size - 1 segments, or null for a polyline
+	 * @param baselineY raster y coordinate of the value 0
+	 */
+	SeriesPath(double[] xs,
+			double[] ys,
+			int size,
+			double[] controls,
+			boolean quadraticEnds,
+			boolean toBaseline,
+			double baselineY) {
+		this.xs = xs;
+		this.ys = ys;
+		this.size = size;
+		this.controls = controls;
+		this.quadraticEnds = quadraticEnds;
+		this.toBaseline = toBaseline;
+		this.baselineY = baselineY;
+	}
+
+	/**
+	 * @return the path of the series line
+	 */
+	Shape line() {
+		return line;
+	}
+
+	/**
+	 * @return the closed path of the area below the line
+	 */
+	Shape area() {
+		return area;
+	}
+
+	/**
+	 * @return the number of lines and curves of the line path
+	 */
+	int segments() {
+		return Math.max(0, size - 1);
+	}
+
+	/**
+	 * Sends the line to the sink, replacing the curves with polylines
+	 */
+	void appendLine(PathSink sink) {
+		if (size == 0) {
+			return;
+		}
+		sink.moveTo(xs[0], ys[0]);
+		appendSegments(sink);
+	}
+
+	/**
+	 * Sends the closed area to the sink, replacing the curves with polylines
+	 */
+	void appendArea(PathSink sink) {
+		if (size == 0) {
+			return;
+		}
+		if (toBaseline) {
+			sink.moveTo(xs[0], baselineY);
+			sink.lineTo(xs[0], ys[0]);
+		} else {
+			sink.moveTo(xs[0], ys[0]);
+		}
+		appendSegments(sink);
+		if (toBaseline) {
+			sink.lineTo(xs[size - 1], baselineY);
+		}
+		sink.closePath();
+	}
+
+	private void appendSegments(PathSink sink) {
+		for (int i = 1; i < size; i++) {
+			if (controls == null) {
+				sink.lineTo(xs[i], ys[i]);
+				continue;
+			}
+			int offset = (i - 1) * 4;
+			if (isQuadratic(i - 1)) {
+				PathSink.quadTo(sink, xs[i - 1], ys[i - 1], controls[offset], controls[offset + 1], xs[i], ys[i]);
+			} else {
+				PathSink.curveTo(sink, xs[i - 1], ys[i - 1],
+						controls[offset], controls[offset + 1],
+						controls[offset + 2], controls[offset + 3],
+						xs[i], ys[i]
+				);
+			}
+		}
+	}
+
+	private boolean isQuadratic(int segment) {
+		return quadraticEnds && (segment == 0 || segment == size - 2);
+	}
+
+	/**
+	 * Line or area, iterated directly over the coordinates of the path.
+	 * The less frequent hit tests are answered by a copy of the path
+	 */
+	private final class View implements Shape {
+
+		private final boolean area;
+		private Rectangle2D bounds;
+
+		View(boolean area) {
+			this.area = area;
+		}
+
+		@Override
+		public Rectangle getBounds() {
+			return getBounds2D().getBounds();
+		}
+
+		@Override
+		public Rectangle2D getBounds2D() {
+			if (bounds == null) {
+				if (size == 0) {
+					bounds = new Rectangle2D.Double();
+				} else {
+					double minX = xs[0], minY = ys[0], maxX = xs[0], maxY = ys[0];
+					for (int i = 1; i < size; i++) {
+						minX = Math.min(minX, xs[i]);
+						minY = Math.min(minY, ys[i]);
+						maxX = Math.max(maxX, xs[i]);
+						maxY = Math.max(maxY, ys[i]);
+					}
+					if (controls != null) {
+						for (int i = 0; i < (size - 1) * 4; i += 2) {
+							minX = Math.min(minX, controls[i]);
+							minY = Math.min(minY, controls[i + 1]);
+							maxX = Math.max(maxX, controls[i]);
+							maxY = Math.max(maxY, controls[i + 1]);
+						}
+					}
+					if (area && toBaseline) {
+						minY = Math.min(minY, baselineY);
+						maxY = Math.max(maxY, baselineY);
+					}
+					bounds = new Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY);
+				}
+			}
+			return bounds;
+		}
+
+		@Override
+		public boolean contains(double x, double y) {
+			return new Path2D.Double(this).contains(x, y);
+		}
+
+		@Override
+		public boolean contains(Point2D p) {
+			return contains(p.getX(), p.getY());
+		}
+
+		@Override
+		public boolean intersects(double x, double y, double w, double h) {
+			return new Path2D.Double(this).intersects(x, y, w, h);
+		}
+
+		@Override
+		public boolean intersects(Rectangle2D r) {
+			return intersects(r.getX(), r.getY(), r.getWidth(), r.getHeight());
+		}
+
+		@Override
+		public boolean contains(double x, double y, double w, double h) {
+			return new Path2D.Double(this).contains(x, y, w, h);
+		}
+
+		@Override
+		public boolean contains(Rectangle2D r) {
+			return contains(r.getX(), r.getY(), r.getWidth(), r.getHeight());
+		}
+
+		@Override
+		public PathIterator getPathIterator(AffineTransform at) {
+			return new Iterator(area, at);
+		}
+
+		@Override
+		public PathIterator getPathIterator(AffineTransform at, double flatness) {
+			return new FlatteningPathIterator(getPathIterator(at), flatness);
+		}
+	}
+
+	/**
+	 * Elements of the line: the move to the first vertex and the segments.
+	 * The area adds the segments from and to the value 0, if any, and the close
+	 */
+	private final class Iterator implements PathIterator {
+
+		private final AffineTransform transform;
+		/**
+		 * Number of elements before the first segment
+		 */
+		private final int prefix;
+		private final int count;
+		private final double[] doubleCoords = new double[6];
+		private int index;
+
+		Iterator(boolean area, AffineTransform transform) {
+			this.transform = transform;
+			if (size == 0) {
+				this.prefix = 0;
+				this.count = 0;
+			} else if (!area) {
+				this.prefix = 1;
+				this.count = size;
+			} else if (toBaseline) {
+				this.prefix = 2;
+				this.count = size + 3;
+			} else {
+				this.prefix = 1;
+				this.count = size + 1;
+			}
+		}
+
+		@Override
+		public int getWindingRule() {
+			return WIND_NON_ZERO;
+		}
+
+		@Override
+		public boolean isDone() {
+			return index >= count;
+		}
+
+		@Override
+		public void next() {
+			index++;
+		}
+
+		@Override
+		public int currentSegment(float[] coords) {
+			int type = currentSegment(doubleCoords);
+			for (int i = 0; i < 6; i++) {
+				coords[i] = (float) doubleCoords[i];
+			}
+			return type;
+		}
+
+		@Override
+		public int currentSegment(double[] coords) {
+			int type;
+			int points = 1;
+			int segment = index - prefix;
+			if (index == 0) {
+				type = SEG_MOVETO;
+				coords[0] = xs[0];
+				coords[1] = prefix == 2 ? baselineY : ys[0];
+			} else if (index == 1 && prefix == 2) {
+				type = SEG_LINETO;
+				coords[0] = xs[0];
+				coords[1] = ys[0];
+			} else if (segment < size - 1) {
+				if (controls == null) {
+					type = SEG_LINETO;
+					coords[0] = xs[segment + 1];
+					coords[1] = ys[segment + 1];
+				} else if (isQuadratic(segment)) {
+					type = SEG_QUADTO;
+					points = 2;
+					coords[0] = controls[segment * 4];
+					coords[1] = controls[segment * 4 + 1];
+					coords[2] = xs[segment + 1];
+					coords[3] = ys[segment + 1];
+				} else {
+					type = SEG_CUBICTO;
+					points = 3;
+					System.arraycopy(controls, segment * 4, coords, 0, 4);
+					coords[4] = xs[segment + 1];
+					coords[5] = ys[segment + 1];
+				}
+			} else if (index == count - 1) {
+				return SEG_CLOSE;
+			} else {
+				type = SEG_LINETO;
+				coords[0] = xs[size - 1];
+				coords[1] = baselineY;
+			}
+			if (transform != null) {
+				transform.transform(coords, 0, coords, 0, points);
+			}
+			return type;
+		}
+	}
+}
@@ -0,0 +1,251 @@
+package it.cavallium.jlinegraph;
+
+import java.util.Arrays;
+
+/**
+ * Vertices of a function sorted by x, indexed by a pyramid of the minimum and maximum y of buckets of vertices,
+ * for series too long to be read whole at each render.
+ * <p>
+ * The first level has a bucket every {@link #BASE_BUCKET_SIZE} vertices, each of the next levels merges two buckets
+ * of the previous one, like a segment tree. {@link #decimate(double, double, int)} keeps the first, minimum, maximum
+ * and last vertex of each pixel column of an x range, finding each column by binary search and its minimum
+ * and maximum in logarithmic time, so the renderers read a number of vertices that depends on the plot width
+ * and not on the size of the series. The index takes about half a byte per vertex.
+ * <p>
+ * Wrap the columns of a {@link SeriesData} to use the index: the renderers decimate the series drawn only as a line
+ * or an area, like {@link Downsampling#MIN_MAX}. The columns must not change after the pyramid is built.
+ */
+public final class SeriesPyramid implements VertexColumns {
+
+	private static final int BASE_BUCKET_SHIFT = 5;
+	/**
+	 * Vertices of each bucket of the first level
+	 */
+	public static final int BASE_BUCKET_SIZE = 1 << BASE_BUCKET_SHIFT;
+	/**
+	 * Maximum vertices kept for each column
+	 */
+	private static final int VERTICES_PER_COLUMN = 4;
+
+	private final VertexColumns columns;
+	/**
+	 * Index of the vertex with the minimum y of each bucket, for each level
+	 */
+	private final int[][] minIndices;
+	/**
+	 * Index of the vertex with the maximum y of each bucket, for each level
+	 */
+	private final int[][] maxIndices;
+
+	/**
+	 * Builds the pyramid of the vertices, reading all of them once
+	 *
+	 * @param columns vertices sorted by x
+	 */
+	public SeriesPyramid(VertexColumns columns) {
+		if (!columns.isSortedByX()) {
+			throw new IllegalArgumentException("The vertices are not sorted by x");
+		}
+		this.columns = columns;
+		int size = columns.size();
+		int buckets = (size + BASE_BUCKET_SIZE - 1) >> BASE_BUCKET_SHIFT;
+		int levels = 1;
+		for (int length = buckets; length > 1; length = (length + 1) >> 1) {
+			levels++;
+		}
+		minIndices = new int[levels][];
+		maxIndices = new int[levels][];
+		var baseMin = new int[buckets];
+		var baseMax = new int[buckets];
+		for (int bucket = 0; bucket < buckets; bucket++) {
+			int start = bucket << BASE_BUCKET_SHIFT;
+			int end = Math.min(size, start + BASE_BUCKET_SIZE);
+			int min = start;
+			int max = start;
+			double minY = columns.y(start);
+			double maxY = minY;
+			for (int i = start + 1; i < end; i++) {
+				double y = columns.y(i);
+				if (y < minY) {
+					minY = y;
+					min = i;
+				}
+				if (y > maxY) {
+					maxY = y;
+					max = i;
+				}
+			}
+			baseMin[bucket] = min;
+			baseMax[bucket] = max;
+		}
+		minIndices[0] = baseMin;
+		maxIndices[0] = baseMax;
+		for (int level = 1; level < levels; level++) {
+			var childMin = minIndices[level - 1];
+			var childMax = maxIndices[level - 1];
+			int length = (childMin.length + 1) >> 1;
+			var levelMin = new int[length];
+			var levelMax = new int[length];
+			for (int bucket = 0; bucket < length; bucket++) {
+				int left = bucket << 1;
+				int right = Math.min(left + 1, childMin.length - 1);
+				levelMin[bucket] = lower(childMin[left], childMin[right]);
+				levelMax[bucket] = higher(childMax[left], childMax[right]);
+			}
+			minIndices[level] = levelMin;
+			maxIndices[level] = levelMax;
+		}
+	}
+
+	@Override
+	public int size() {
+		return columns.size();
+	}
+
+	@Override
+	public double x(int index) {
+		return columns.x(index);
+	}
+
+	@Override
+	public double y(int index) {
+		return columns.y(index);
+	}
+
+	@Override
+	public GraphBounds bounds() {
+		return columns.bounds();
+	}
+
+	@Override
+	public boolean isSortedByX() {
+		return true;
+	}
+
+	/**
+	 * Splits the x range in columns of the same width and keeps the first, minimum, maximum and last vertex
+	 * of each column, in their order, together with the vertices just before and after the range,
+	 * so the line enters and leaves it. If there are not more than 4 vertices per column, all of them are kept
+	 *
+	 * @param columnCount number of columns, usually one per pixel
+	 * @return a copy of the vertices kept
+	 */
+	public VertexColumns decimate(double fromX, double toX, int columnCount) {
+		if (columnCount <= 0) {
+			throw new IllegalArgumentException("The columns must be at least one");
+		}
+		int size = columns.size();
+		int start = SeriesRanges.lowerBound(columns, fromX);
+		int end = SeriesRanges.lowerBound(columns, toX);
+		int first = Math.max(0, start - 1);
+		int last = Math.min(size, end + 1);
+		if ((long) (end - start) <= (long) columnCount * VERTICES_PER_COLUMN) {
+			var xs = new double[last - first];
+			var ys = new double[last - first];
+			for (int i = first; i < last; i++) {
+				xs[i - first] = columns.x(i);
+				ys[i - first] = columns.y(i);
+			}
+			return VertexColumns.of(xs, ys);
+		}
+		var xs = new double[columnCount * VERTICES_PER_COLUMN + 2];
+		var ys = new double[xs.length];
+		int out = 0;
+		if (first < start) {
+			out = copy(first, xs, ys, out);
+		}
+		var minMax = new int[2];
+		double columnWidth = (toX - fromX) / columnCount;
+		int columnStart = start;
+		for (int column = 0; column < columnCount && columnStart < end; column++) {
+			int columnEnd = column == columnCount - 1
+					? end
+					: Math.max(columnStart, SeriesRanges.lowerBound(columns, fromX + columnWidth * (column + 1)));
+			if (columnEnd == columnStart) {
+				continue;
+			}
+			findMinMax(columnStart, columnEnd, minMax);
+			int lastIndex = columnEnd - 1;
+			int lowIndex = Math.min(minMax[0], minMax[1]);
+			int highIndex = Math.max(minMax[0], minMax[1]);
+			out = copy(columnStart, xs, ys, out);
+			if (lowIndex != columnStart) {
+				out = copy(lowIndex, xs, ys, out);
+			}
+			if (highIndex != lowIndex && highIndex != lastIndex) {
+				out = copy(highIndex, xs, ys, out);
+			}
+			if (lastIndex != columnStart && lastIndex != lowIndex) {
+				out = copy(lastIndex, xs, ys, out);
+			}
+			columnStart = columnEnd;
+		}
+		if (end < last) {
+			out = copy(end, xs, ys, out);
+		}
+		return VertexColumns.of(Arrays.copyOf(xs, out), Arrays.copyOf(ys, out));
+	}
+
+	/**
+	 * Finds the vertices with the minimum and the maximum y from start to end, reading the vertices
+	 * of the incomplete buckets at the two sides and the buckets of the pyramid in between
+	 *
+	 * @param result receives the index of the minimum and the index of the maximum
+	 */
+	private void findMinMax(int start, int end, int[] result) {
+		int min = start;
+		int max = start;
+		int bucketsStart = Math.min(end, (start + BASE_BUCKET_SIZE - 1) & -BASE_BUCKET_SIZE);
+		int bucketsEnd = Math.max(bucketsStart, end & -BASE_BUCKET_SIZE);
+		for (int i = start + 1; i < bucketsStart; i++) {
+			min = lower(min, i);
+			max = higher(max, i);
+		}
+		for (int i = bucketsEnd; i < end; i++) {
+			min = lower(min, i);
+			max = higher(max, i);
+		}
+		int low = bucketsStart >> BASE_BUCKET_SHIFT;
+		int high = bucketsEnd >> BASE_BUCKET_SHIFT;
+		for (int level = 0; low < high; level++) {
+			if ((low & 1) != 0) {
+				min = lower(min, minIndices[level][low]);
+				max = higher(max, maxIndices[level][low]);
+				low++;
+			}
+			if ((high & 1) != 0) {
+				high--;
+				min = lower(min, minIndices[level][high]);
+				max = higher(max, maxIndices[level][high]);
+			}
+			low >>= 1;
+			high >>= 1;
+		}
+		result[0] = min;
+		result[1] = max;
+	}
+
+	/**
+	 * @return the index of the vertex with the lower y, or of the first one if they are equal
+	 */
+	private int lower(int a, int b) {
+		double aY = columns.y(a);
+		double bY = columns.y(b);
+		return bY < aY || (bY == aY && b < a) ? b : a;
+	}
+
+	/**
+	 * @return the index of the vertex with the higher y, or of the first one if they are equal
+	 */
+	private int higher(int a, int b) {
+		double aY = columns.y(a);
+		double bY = columns.y(b);
+		return bY > aY || (bY == aY && b < a) ? b : a;
+	}
+
+	private int copy(int index, double[] xs, double[] ys, int out) {
+		xs[out] = columns.x(index);
+		ys[out] = columns.y(index);
+		return out + 1;
+	}
+}
@@ -0,0 +1,163 @@
+package it.cavallium.jlinegraph;
+
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Selection of the vertices of a series that can draw inside a range of columns, used to skip the vertices
+ * outside the clip and by the renderers that redraw only a part of the plot
+ */
+final class SeriesRanges {
+
+	/**
+	 * Vertices kept before the first one inside the range: the segment that enters the range
+	 * and the two previous points, that change the curve of a smoothed function
+	 */
+	private static final int CONTEXT_VERTICES = 3;
+	/**
+	 * Vertices kept on each side of the range for a function that is not smoothed: the segments that enter
+	 * and leave the range
+	 */
+	private static final int LINE_CONTEXT_VERTICES = 1;
+	/**
+	 * Pixels around the strokes and the points touched by the anti-aliasing
+	 */
+	private static final double ANTIALIASING_MARGIN = 2d;
+
+	private SeriesRanges() {
+	}
+
+	/**
+	 * @return the vertices of a function sorted by x that can draw between the two data x coordinates,
+	 * or the same series if all of them can or if it's a {@link SeriesPyramid}, that is selected when it's drawn
+	 */
+	static SeriesData visibleRange(SeriesData series, double fromX, double toX) {
+		if (series.columns() instanceof SeriesPyramid) {
+			return series;
+		}
+		return visibleRange(series, fromX, toX, CONTEXT_VERTICES);
+	}
+
+	/**
+	 * A smoothed series keeps more vertices around the range. A {@link SeriesPyramid} drawn only as a line
+	 * or an area is decimated to the first, minimum, maximum and last vertex of each pixel column
+	 *
+	 * @return the vertices of the series that can draw between two raster x coordinates, found by binary search,
+	 * or the same series if it's not a function sorted by x or if it's drawn with a {@link Density},
+	 * whose colors are scaled by the densest pixel of the whole plot
+	 */
+	static SeriesData clipRange(SeriesData series,
+			GraphBounds graphBounds,
+			RasterSize graphOffset,
+			RasterSize graphSize,
+			double minRasterX,
+			double maxRasterX,
+			SeriesStyle style) {
+		if (!series.isFunction()
+				|| style.density() != Density.NONE
+				|| !(graphSize.width() > 0d)
+				|| !(graphBounds.maxX() > graphBounds.minX())
+				|| !series.columns().isSortedByX()) {
+			return series;
+		}
+		double scale = (graphBounds.maxX() - graphBounds.minX()) / graphSize.width();
+		if (series.columns() instanceof SeriesPyramid pyramid
+				&& style.pointsWeight() == 0) {
+			// Whole raster columns, so that the pixel columns of the partial redraws are the same
+			double fromColumn = Math.floor(minRasterX);
+			double toColumn = Math.max(fromColumn + 1d, Math.ceil(maxRasterX));
+			return new SeriesData(pyramid.decimate(graphBounds.minX() + (fromColumn - graphOffset.width()) * scale,
+					graphBounds.minX() + (toColumn - graphOffset.width()) * scale,
+					(int) Math.min(Integer.MAX_VALUE / 8, toColumn - fromColumn)
+			), series.isFunction(), series.name(), series.showInLegend());
+		}
+		return visibleRange(series,
+				graphBounds.minX() + (minRasterX - graphOffset.width()) * scale,
+				graphBounds.minX() + (maxRasterX - graphOffset.width()) * scale,
+				style.smoothness() > 0d ? CONTEXT_VERTICES : LINE_CONTEXT_VERTICES
+		);
+	}
+
+	private static SeriesData visibleRange(SeriesData series, double fromX, double toX, int context) {
+		var columns = series.columns();
+		int size = columns.size();
+		int start = Math.max(0, lowerBound(columns, fromX) - context);
+		int end = Math.min(size, lowerBound(columns, toX) + context);
+		if (start == 0 && end == size) {
+			return series;
+		}
+		return new SeriesData(new ColumnsRange(columns, start, Math.max(0, end - start)),
+				series.isFunction(),
+				series.name(),
+				series.showInLegend()
+		);
+	}
+
+	/**
+	 * @return the distance from a vertex of the farthest pixel that its line or its point can touch
+	 */
+	static double strokeMargin(Graph graph, GraphLayout layout) {
+		var resources = layout.resources();
+		var styles = graph.style().seriesStyles();
+		int styleCount = Math.min(styles.size(), graph.data().series().size());
+		double margin = 0d;
+		for (int i = 0; i < styleCount; i++) {
+			margin = Math.max(margin, strokeMargin(resources.seriesStrokes().get(i).getLineWidth(),
+					resources.seriesPointsStrokes().get(i).getLineWidth() * styles.get(i).markerShape().extent()
+			));
+		}
+		return margin;
+	}
+
+	/**
+	 * @param margin distance from a vertex of the farthest pixel that it can touch
+	 * @return the raster area of the vertices that can draw inside the clip
+	 */
+	static Rectangle2D drawableArea(double clipMinX, double clipMinY, double clipMaxX, double clipMaxY, double margin) {
+		return new Rectangle2D.Double(clipMinX - margin,
+				clipMinY - margin,
+				clipMaxX - clipMinX + margin * 2d,
+				clipMaxY - clipMinY + margin * 2d
+		);
+	}
+
+	/**
+	 * @param markerExtent distance from the center of the farthest point of a marker
+	 * @return the distance from a vertex of the farthest pixel that its line or its point can touch
+	 */
+	static double strokeMargin(double lineWidth, double markerExtent) {
+		return Math.max(lineWidth / 2d, markerExtent) + ANTIALIASING_MARGIN;
+	}
+
+	/**
+	 * @return the index of the first vertex with an x coordinate not less than the specified one
+	 */
+	static int lowerBound(VertexColumns columns, double x) {
+		int low = 0;
+		int high = columns.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (columns.x(middle) < x) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * View of a range of vertices of other columns
+	 */
+	private record ColumnsRange(VertexColumns columns, int start, int size) implements VertexColumns {
+
+		@Override
+		public double x(int index) {
+			return columns.x(start + index);
+		}
+
+		@Override
+		public double y(int index) {
+			return columns.y(start + index);
+		}
+	}
+}
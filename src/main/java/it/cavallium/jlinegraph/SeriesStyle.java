@@ -1,6 +1,23 @@
 package it.cavallium.jlinegraph;
 
-public record SeriesStyle(Color color, double pointsWeight, double lineWeight, double areaOpacity, double smoothness) {
+import java.util.Objects;
+
+public record SeriesStyle(Color color, double pointsWeight, double lineWeight, double areaOpacity, double smoothness,
+												 Downsampling downsampling, MarkerShape markerShape, Density density) {
+
+	public SeriesStyle(Color color, double pointsWeight, double lineWeight, double areaOpacity, double smoothness) {
+		this(color, pointsWeight, lineWeight, areaOpacity, smoothness, Downsampling.NONE);
+	}
+
+	public SeriesStyle(Color color, double pointsWeight, double lineWeight, double areaOpacity, double smoothness,
+			Downsampling downsampling) {
+		this(color, pointsWeight, lineWeight, areaOpacity, smoothness, downsampling, MarkerShape.CIRCLE);
+	}
+
+	public SeriesStyle(Color color, double pointsWeight, double lineWeight, double areaOpacity, double smoothness,
+			Downsampling downsampling, MarkerShape markerShape) {
+		this(color, pointsWeight, lineWeight, areaOpacity, smoothness, downsampling, markerShape, Density.NONE);
+	}
 
 	public SeriesStyle {
 		if (pointsWeight != 0 && (pointsWeight < 1d || pointsWeight > 4.0d)) {
@@ -15,5 +32,8 @@ public record SeriesStyle(Color color, double pointsWeight, double lineWeight, d
 		if (smoothness < 0d || smoothness > 1.0d) {
 			throw new IndexOutOfBoundsException();
 		}
+		Objects.requireNonNull(downsampling);
+		Objects.requireNonNull(markerShape);
+		Objects.requireNonNull(density);
 	}
 }
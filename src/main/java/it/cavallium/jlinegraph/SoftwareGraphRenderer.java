@@ -0,0 +1,489 @@
+package it.cavallium.jlinegraph;
+
+import it.cavallium.jlinegraph.GraphLayout.LabelWithOffset;
+import java.util.Arrays;
+
+/**
+ * Renders graphs into arrays of non-premultiplied ARGB pixels without using AWT graphics or fonts,
+ * so it doesn't load the toolkit and it doesn't share any lock of the Java2D pipeline with the other threads.
+ * <p>
+ * The pixels are in row-major order, with {@code (int) bounds.maxX()} pixels per row and
+ * {@code (int) bounds.maxY()} rows, like the images of {@link AWTBufferedGraphRenderer}.
+ * Text is drawn with a built-in stroke font that has the proportions of the default AWT font,
+ * so the layout is close to the AWT one but the glyphs are simpler.
+ */
+public class SoftwareGraphRenderer implements IGraphRenderer<int[]> {
+
+	private static final float[] ZERO_LINE_DASH = {2.0f, 3.0f};
+	private static final ThreadLocal<Canvas> CANVAS = ThreadLocal.withInitial(Canvas::new);
+
+	private final RenderListener listener;
+
+	public SoftwareGraphRenderer() {
+		this(RenderListener.NONE);
+	}
+
+	/**
+	 * @param listener listener notified with the timings and counters of each render
+	 */
+	public SoftwareGraphRenderer(RenderListener listener) {
+		this.listener = listener;
+	}
+
+	@Override
+	public int[] renderGraph(Graph graph, GraphBounds bounds) {
+		return renderGraph(graph, bounds, new int[(int) bounds.maxX() * (int) bounds.maxY()]);
+	}
+
+	/**
+	 * Renders the graph into existing pixels, with {@code (int) bounds.maxX()} pixels per row.
+	 * Only the pixels inside the bounds are overwritten
+	 *
+	 * @return the target pixels
+	 */
+	public int[] renderGraph(Graph graph, GraphBounds bounds, int[] target) {
+		int width = (int) bounds.maxX();
+		int height = (int) bounds.maxY();
+		if (target.length < width * height) {
+			throw new IllegalArgumentException("The target pixels are less than the bounds");
+		}
+		var recorder = RenderRecorder.start(listener, graph);
+		var canvas = CANVAS.get();
+		canvas.rasterizer.reset(target, width, height);
+		try {
+			long layoutStart = RenderRecorder.now(recorder);
+			var fonts = graph.style().fonts();
+			var valuesMetrics = StrokeFont.metrics((float) fonts.valueLabel());
+			var axisNameMetrics = StrokeFont.metrics((float) fonts.axisName());
+			var layout = LayoutGeometry.compute(graph,
+					bounds,
+					StrokeFont.metrics((float) fonts.global()),
+					valuesMetrics,
+					axisNameMetrics,
+					StrokeFont.metrics((float) fonts.seriesName()),
+					recorder
+			);
+			if (recorder != null) {
+				recorder.phase(RenderPhase.LAYOUT, layoutStart);
+			}
+			paintGraph(canvas, graph, bounds, layout, valuesMetrics, axisNameMetrics, recorder);
+		} finally {
+			canvas.rasterizer.release();
+		}
+		RenderRecorder.complete(recorder, listener, graph);
+		return target;
+	}
+
+	private static void paintGraph(Canvas canvas,
+			Graph graph,
+			GraphBounds bounds,
+			LayoutGeometry layout,
+			TextMetrics valuesMetrics,
+			TextMetrics axisNameMetrics,
+			RenderRecorder recorder) {
+		long frameStart = RenderRecorder.now(recorder);
+		var rasterizer = canvas.rasterizer;
+		var style = graph.style();
+		rasterizer.clearRect((int) Math.floor(bounds.minX()),
+				(int) Math.floor(bounds.minY()),
+				(int) Math.ceil(bounds.width()),
+				(int) Math.ceil(bounds.height()),
+				style.colors().background().toARGB()
+		);
+		if (!layout.hasPlotArea()) {
+			if (recorder != null) {
+				recorder.phase(RenderPhase.FRAME, frameStart);
+			}
+			return;
+		}
+		renderFrame(canvas, graph, bounds, layout, valuesMetrics, axisNameMetrics, recorder);
+		if (recorder != null) {
+			recorder.phase(RenderPhase.FRAME, frameStart);
+		}
+
+		var graphOffset = layout.graphOffset();
+		var graphSize = layout.graphSize();
+		double lineWidth = style.strokeWidth();
+		rasterizer.setClip(graphOffset.width() - lineWidth,
+				graphOffset.height() - lineWidth,
+				graphOffset.width() + graphSize.width() + lineWidth,
+				graphOffset.height() + graphSize.height() + lineWidth
+		);
+		long zeroLinesStart = RenderRecorder.now(recorder);
+		renderZeroLines(canvas, graph, layout);
+		if (recorder != null) {
+			recorder.phase(RenderPhase.FRAME, zeroLinesStart);
+		}
+		var seriesStyles = style.seriesStyles();
+		var seriesList = graph.data().series();
+		for (int i = 0; i < seriesList.size(); i++) {
+			if (seriesStyles.isEmpty()) {
+				throw new IllegalArgumentException("No styles found");
+			}
+			drawSeries(canvas, graph, layout, seriesList.get(i), seriesStyles.get(i % seriesStyles.size()), recorder);
+		}
+		rasterizer.resetClip();
+
+		if (style.showLegend()) {
+			long legendStart = RenderRecorder.now(recorder);
+			drawSeriesLegend(canvas, graph, layout, recorder);
+			if (recorder != null) {
+				recorder.phase(RenderPhase.LEGEND, legendStart);
+			}
+		}
+	}
+
+	/**
+	 * Draws borders, axis names and value labels
+	 */
+	private static void renderFrame(Canvas canvas,
+			Graph graph,
+			GraphBounds bounds,
+			LayoutGeometry layout,
+			TextMetrics valuesMetrics,
+			TextMetrics axisNameMetrics,
+			RenderRecorder recorder) {
+		var style = graph.style();
+		var x = style.x();
+		var y = style.y();
+		var stroker = canvas.stroker;
+		int fgColor = style.colors().foreground().toARGB();
+		double lineWidth = style.strokeWidth();
+		var graphOffset = layout.graphOffset();
+		var graphSize = layout.graphSize();
+
+		// Do not draw the border if the graph is fullscreen
+		if (graphOffset.width() > bounds.minX()
+				|| graphOffset.height() > bounds.minY()
+				|| graphSize.width() < bounds.width()
+				|| graphSize.height() < bounds.height()) {
+			stroker.setStroke(lineWidth, false, null);
+			strokeRect(stroker, graphOffset.width(), graphOffset.height(), graphSize.width(), graphSize.height());
+			canvas.rasterizer.fill(fgColor);
+		}
+		if (y.showName()) {
+			var center = layout.yAxisNameCenterOffset();
+			var title = y.title();
+			// Baseline start of the title, rotated by 90 degrees counterclockwise around its center
+			drawText(canvas,
+					title,
+					center.width() + axisNameMetrics.height() / 2d - axisNameMetrics.descent(),
+					center.height() + axisNameMetrics.stringWidth(title) / 2d,
+					axisNameMetrics,
+					true,
+					fgColor,
+					recorder
+			);
+		}
+		if (x.showName()) {
+			var center = layout.xAxisNameCenterOffset();
+			var title = x.title();
+			drawText(canvas,
+					title,
+					center.width() - axisNameMetrics.stringWidth(title) / 2d,
+					center.height() + axisNameMetrics.height() / 2d - axisNameMetrics.descent(),
+					axisNameMetrics,
+					false,
+					fgColor,
+					recorder
+			);
+		}
+
+		boolean showYTicks = y.mode().showRuler();
+		int yValueLineLength = layout.yValueLineLength();
+		if ((yValueLineLength > 0 && showYTicks) || y.mode().showLabels()) {
+			var yValuesOffset = layout.yValuesOffset();
+			double yValueLineOffset = layout.yValueLineOffset();
+			if (showYTicks) {
+				stroker.setStroke(lineWidth, false, null);
+				for (LabelWithOffset label : layout.yLabels()) {
+					var lineStartOffsetY = yValuesOffset.height() + label.rasterOffset();
+					var currentLineOffsetX = label.formattedText().isBlank() ? yValueLineLength / 3d : 0;
+					var currentLineLength = yValueLineLength + (label.formattedText().isBlank() ? -yValueLineLength / 3d : 0);
+					stroker.moveTo(yValueLineOffset + currentLineOffsetX, lineStartOffsetY);
+					stroker.lineTo(yValueLineOffset + currentLineOffsetX + currentLineLength, lineStartOffsetY);
+				}
+				stroker.finish();
+				canvas.rasterizer.fill(fgColor);
+			}
+			if (y.mode().showLabels()) {
+				for (LabelWithOffset label : layout.yLabels()) {
+					drawText(canvas,
+							label.formattedText(),
+							yValuesOffset.width() + layout.yLabelsAreaSize().width()
+									- valuesMetrics.stringWidth(label.formattedText()),
+							yValuesOffset.height() + label.rasterOffset() + valuesMetrics.height() / 2d
+									- valuesMetrics.descent(),
+							valuesMetrics,
+							false,
+							fgColor,
+							recorder
+					);
+				}
+			}
+		}
+
+		boolean showXTicks = x.mode().showRuler();
+		int xValueLineLength = layout.xValueLineLength();
+		if ((xValueLineLength > 0 && showXTicks) || x.mode().showLabels()) {
+			var xValuesOffset = layout.xValuesOffset();
+			double xValueLineOffset = layout.xValueLineOffset();
+			if (showXTicks) {
+				stroker.setStroke(lineWidth, false, null);
+				for (LabelWithOffset label : layout.xLabels()) {
+					var lineStartOffsetX = xValuesOffset.width() + label.rasterOffset();
+					var currentLineLength = label.formattedText().isBlank() ? xValueLineLength / 1.5d : xValueLineLength;
+					stroker.moveTo(lineStartOffsetX, xValueLineOffset);
+					stroker.lineTo(lineStartOffsetX, xValueLineOffset + currentLineLength);
+				}
+				stroker.finish();
+				canvas.rasterizer.fill(fgColor);
+			}
+			if (x.mode().showLabels()) {
+				for (LabelWithOffset label : layout.xLabels()) {
+					drawText(canvas,
+							label.formattedText(),
+							xValuesOffset.width() + label.rasterOffset()
+									- valuesMetrics.stringWidth(label.formattedText()) / 2d,
+							xValuesOffset.height() + valuesMetrics.height(),
+							valuesMetrics,
+							false,
+							fgColor,
+							recorder
+					);
+				}
+			}
+		}
+	}
+
+	private static void renderZeroLines(Canvas canvas, Graph graph, LayoutGeometry layout) {
+		var graphBounds = graph.data().bounds();
+		var graphOffset = layout.graphOffset();
+		var graphSize = layout.graphSize();
+		var stroker = canvas.stroker;
+		int zeroLineColor = graph.style().colors().foreground().multiplyOpacity(0.5f).toARGB();
+		stroker.setStroke(graph.style().strokeWidth(), true, ZERO_LINE_DASH);
+
+		if ((graphBounds.minY() < 0 && graphBounds.maxY() > 0)
+				|| (graphBounds.minY() > 0 && graphBounds.maxY() < 0)) {
+			double rasterZeroY = SeriesGeometry.rasterZeroY(graphBounds, graphOffset, graphSize);
+			stroker.moveTo(graphOffset.width(), rasterZeroY);
+			stroker.lineTo(graphOffset.width() + graphSize.width(), rasterZeroY);
+			stroker.finish();
+			canvas.rasterizer.fill(zeroLineColor);
+		}
+		if ((graphBounds.minX() < 0 && graphBounds.maxX() > 0)
+				|| (graphBounds.minX() > 0 && graphBounds.maxX() < 0)) {
+			double rasterZeroX = graphOffset.width()
+					+ ((-graphBounds.minX()) / (graphBounds.maxX() - graphBounds.minX())) * graphSize.width();
+			stroker.moveTo(rasterZeroX, graphOffset.height());
+			stroker.lineTo(rasterZeroX, graphOffset.height() + graphSize.height());
+			stroker.finish();
+			canvas.rasterizer.fill(zeroLineColor);
+		}
+	}
+
+	private static void drawSeries(Canvas canvas,
+			Graph graph,
+			LayoutGeometry layout,
+			SeriesData series,
+			SeriesStyle style,
+			RenderRecorder recorder) {
+		long pathStart = RenderRecorder.now(recorder);
+		var rasterizer = canvas.rasterizer;
+		var graphBounds = graph.data().bounds();
+		var graphOffset = layout.graphOffset();
+		var graphSize = layout.graphSize();
+		double strokeWidth = graph.style().strokeWidth();
+		int lineColor = style.color().toARGB();
+		var drawableArea = SeriesRanges.drawableArea(graphOffset.width() - strokeWidth,
+				graphOffset.height() - strokeWidth,
+				graphOffset.width() + graphSize.width() + strokeWidth,
+				graphOffset.height() + graphSize.height() + strokeWidth,
+				SeriesRanges.strokeMargin(strokeWidth * style.lineWeight(),
+						strokeWidth * 2d * style.pointsWeight() * style.markerShape().extent()
+				)
+		);
+		boolean dense = style.downsampling() == Downsampling.MIN_MAX
+				&& SeriesGeometry.isDense(series, graphBounds, graphSize);
+		series = SeriesRanges.clipRange(series, graphBounds, graphOffset, graphSize,
+				drawableArea.getMinX(),
+				drawableArea.getMaxX(),
+				style
+		);
+		int size = series.columns().size();
+		var xs = new double[size];
+		var ys = new double[size];
+		double rasterMinY = SeriesGeometry.rasterZeroY(graphBounds, graphOffset, graphSize);
+		SeriesGeometry.project(series, graphBounds, graphOffset, graphSize, xs, ys);
+
+		if (style.density() != Density.NONE) {
+			var grid = DensityGrid.of(graphOffset, graphSize);
+			int[] counts = canvas.counts(grid);
+			int maxCount = grid.count(xs, ys, size, counts);
+			if (maxCount > 0) {
+				long paintStart = RenderRecorder.now(recorder);
+				grid.toARGB(counts, maxCount, style.density(), style.color(), graph.style().colors().foreground());
+				rasterizer.drawPixels(counts, grid.x(), grid.y(), grid.width(), grid.height());
+				if (recorder != null) {
+					recorder.nested(RenderPhase.SERIES_PAINT, RenderPhase.SERIES_PATH, paintStart);
+				}
+			}
+			if (recorder != null) {
+				recorder.phase(RenderPhase.SERIES_PATH, pathStart);
+				recorder.series(size, size, 0, 0);
+			}
+			return;
+		}
+
+		int verticesIn = size;
+		int pathSegments = 0;
+		int markers = 0;
+		if (style.pointsWeight() != 0) {
+			long paintStart = RenderRecorder.now(recorder);
+			markers = size;
+			double radius = strokeWidth * 2d * style.pointsWeight();
+			for (int i = 0; i < size; i++) {
+				style.markerShape().appendTo(rasterizer, xs[i], ys[i], radius);
+				rasterizer.fill(lineColor);
+			}
+			if (recorder != null) {
+				recorder.nested(RenderPhase.SERIES_PAINT, RenderPhase.SERIES_PATH, paintStart);
+			}
+		}
+		if (style.lineWeight() != 0 || style.areaOpacity() > 0d) {
+			size = SeriesGeometry.downsample(xs, ys, size, style.downsampling(), dense, graphSize);
+			var paths = SeriesGeometry.buildPaths(xs, ys, size, style.smoothness(), series.isFunction(), rasterMinY,
+					drawableArea
+			);
+			pathSegments = paths.segments();
+			long paintStart = RenderRecorder.now(recorder);
+			if (style.areaOpacity() > 0d) {
+				paths.appendArea(rasterizer);
+				rasterizer.fill(style.color().multiplyOpacity((float) style.areaOpacity()).toARGB());
+			}
+			if (style.lineWeight() != 0) {
+				var stroker = canvas.stroker;
+				stroker.setStroke(strokeWidth * style.lineWeight(), true, null);
+				paths.appendLine(stroker);
+				stroker.finish();
+				rasterizer.fill(lineColor);
+			}
+			if (recorder != null) {
+				recorder.nested(RenderPhase.SERIES_PAINT, RenderPhase.SERIES_PATH, paintStart);
+			}
+		}
+		if (recorder != null) {
+			recorder.phase(RenderPhase.SERIES_PATH, pathStart);
+			recorder.series(verticesIn, size, pathSegments, markers);
+		}
+	}
+
+	private static void drawSeriesLegend(Canvas canvas, Graph graph, LayoutGeometry layout, RenderRecorder recorder) {
+		var rasterizer = canvas.rasterizer;
+		var stroker = canvas.stroker;
+		var style = graph.style();
+		var legendBounds = layout.legendBounds();
+		var seriesNameMetrics = layout.seriesNameMetrics();
+		int fgColor = style.colors().foreground().toARGB();
+		double seriesPadding = LayoutGeometry.getSeriesPadding(seriesNameMetrics.height());
+		double seriesPreviewLineWidth = seriesNameMetrics.height() * 2;
+		double singleSeriesHeight = seriesNameMetrics.height();
+
+		double legendOffsetX = legendBounds.minX();
+		double legendOffsetY = legendBounds.minY();
+
+		rasterizer.moveTo(legendOffsetX, legendOffsetY);
+		rasterizer.lineTo(legendOffsetX + legendBounds.width(), legendOffsetY);
+		rasterizer.lineTo(legendOffsetX + legendBounds.width(), legendOffsetY + legendBounds.height());
+		rasterizer.lineTo(legendOffsetX, legendOffsetY + legendBounds.height());
+		rasterizer.fill(style.colors().background().multiplyOpacity(0.75f).toARGB());
+		stroker.setStroke(style.strokeWidth(), false, null);
+		strokeRect(stroker, legendOffsetX, legendOffsetY, legendBounds.width(), legendBounds.height());
+		rasterizer.fill(fgColor);
+
+		int i = 0;
+		for (SeriesData series : graph.data().series()) {
+			if (series.showInLegend()) {
+				if (style.seriesStyles().isEmpty()) {
+					throw new IllegalArgumentException("No styles found");
+				}
+				SeriesStyle seriesStyle = style.seriesStyles().get(i % style.seriesStyles().size());
+
+				var lineOffsetX = legendOffsetX + seriesPadding;
+				var currentOffsetY = legendOffsetY + seriesPadding / 2d
+						+ i * (seriesPadding / 2d + singleSeriesHeight + seriesPadding / 2d)
+						+ seriesPadding / 2d;
+				var lineOffsetY = currentOffsetY + singleSeriesHeight / 2d;
+				stroker.setStroke(style.strokeWidth() * 2d, false, null);
+				stroker.moveTo(lineOffsetX, lineOffsetY);
+				stroker.lineTo(lineOffsetX + seriesPreviewLineWidth, lineOffsetY);
+				stroker.finish();
+				rasterizer.fill(seriesStyle.color().overrideOpacity(1.0f).toARGB());
+				drawText(canvas,
+						series.name(),
+						lineOffsetX + seriesPreviewLineWidth + seriesPadding,
+						currentOffsetY + seriesNameMetrics.ascent(),
+						seriesNameMetrics,
+						false,
+						fgColor,
+						recorder
+				);
+				i++;
+			}
+		}
+	}
+
+	private static void strokeRect(SoftwareStroker stroker, double x, double y, double width, double height) {
+		stroker.moveTo(x, y);
+		stroker.lineTo(x + width, y);
+		stroker.lineTo(x + width, y + height);
+		stroker.lineTo(x, y + height);
+		stroker.closePath();
+	}
+
+	/**
+	 * Draws the text with the baseline starting at the specified position
+	 *
+	 * @param rotated true to draw the text from bottom to top
+	 */
+	private static void drawText(Canvas canvas,
+			String text,
+			double x,
+			double y,
+			TextMetrics metrics,
+			boolean rotated,
+			int argb,
+			RenderRecorder recorder) {
+		if (text.isEmpty()) {
+			return;
+		}
+		if (recorder != null) {
+			recorder.glyphs(text);
+		}
+		StrokeFont.drawText(canvas.stroker, text, x, y, metrics.size(), rotated);
+		canvas.rasterizer.fill(argb);
+	}
+
+	/**
+	 * Rasterizer, stroker and density counts of a thread, reused by its renders
+	 */
+	private static final class Canvas {
+
+		private final SoftwareRasterizer rasterizer = new SoftwareRasterizer();
+		private final SoftwareStroker stroker = new SoftwareStroker(rasterizer);
+		private int[] counts = new int[0];
+
+		/**
+		 * @return zeroed counts of the grid
+		 */
+		int[] counts(DensityGrid grid) {
+			if (counts.length < grid.length()) {
+				counts = new int[grid.length()];
+			} else {
+				Arrays.fill(counts, 0, grid.length(), 0);
+			}
+			return counts;
+		}
+	}
+}
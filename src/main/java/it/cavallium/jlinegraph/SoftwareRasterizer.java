@@ -0,0 +1,419 @@
+package it.cavallium.jlinegraph;
+
+import java.util.Arrays;
+
+/**
+ * Anti-aliased scanline rasterizer with analytic coverage, drawing into non-premultiplied ARGB pixels.
+ * <p>
+ * Each edge adds the signed area it covers in each pixel to an accumulation buffer as soon as it's received,
+ * without storing it. {@link #fill(int)} computes the running sum of each row, that is the exact coverage
+ * of the path in each pixel, blends the color and clears the part of the buffer that has been touched.
+ * The coverage of overlapping subpaths is added and clamped to 1, so the non-zero rule is exact inside
+ * the shapes and slightly overestimated on the anti-aliased border of the overlaps.
+ * <p>
+ * Not thread safe, each thread uses its own rasterizer.
+ */
+final class SoftwareRasterizer implements PathSink {
+
+	private int[] pixels;
+	private int width;
+	private int height;
+	private int stride;
+	private float[] area = new float[0];
+
+	private int clipMinX;
+	private int clipMinY;
+	private int clipMaxX;
+	private int clipMaxY;
+
+	/**
+	 * First and last cell of each row touched by the edges since the last fill
+	 */
+	private int[] rowMinX = new int[0];
+	private int[] rowMaxX = new int[0];
+	private int dirtyMinY = Integer.MAX_VALUE;
+	private int dirtyMaxY = Integer.MIN_VALUE;
+
+	private double startX;
+	private double startY;
+	private double currentX;
+	private double currentY;
+
+	/**
+	 * Starts drawing into new pixels, resetting the clip
+	 *
+	 * @param pixels pixels in row-major order, {@code width} pixels per row
+	 */
+	void reset(int[] pixels, int width, int height) {
+		discard();
+		this.pixels = pixels;
+		this.width = width;
+		this.height = height;
+		// Edges on the right border write one pixel past it
+		this.stride = width + 2;
+		if (area.length < stride * height) {
+			area = new float[stride * height];
+		}
+		if (rowMinX.length < height) {
+			rowMinX = new int[height];
+			rowMaxX = new int[height];
+			Arrays.fill(rowMinX, Integer.MAX_VALUE);
+			Arrays.fill(rowMaxX, Integer.MIN_VALUE);
+		}
+		resetClip();
+		resetDirty();
+	}
+
+	/**
+	 * Releases the pixels, keeping the accumulation buffer for the next render
+	 */
+	void release() {
+		this.pixels = null;
+	}
+
+	/**
+	 * Limits the drawing to the pixels whose center is inside the rectangle
+	 */
+	void setClip(double minX, double minY, double maxX, double maxY) {
+		clipMinX = clamp((int) Math.ceil(minX - 0.5d), 0, width);
+		clipMinY = clamp((int) Math.ceil(minY - 0.5d), 0, height);
+		clipMaxX = clamp((int) Math.ceil(maxX - 0.5d), clipMinX, width);
+		clipMaxY = clamp((int) Math.ceil(maxY - 0.5d), clipMinY, height);
+	}
+
+	void resetClip() {
+		clipMinX = 0;
+		clipMinY = 0;
+		clipMaxX = width;
+		clipMaxY = height;
+	}
+
+	/**
+	 * Replaces the pixels of the rectangle with the color, without blending
+	 */
+	void clearRect(int x, int y, int w, int h, int argb) {
+		int minX = clamp(x, clipMinX, clipMaxX);
+		int minY = clamp(y, clipMinY, clipMaxY);
+		int maxX = clamp(x + w, minX, clipMaxX);
+		int maxY = clamp(y + h, minY, clipMaxY);
+		for (int row = minY; row < maxY; row++) {
+			Arrays.fill(pixels, row * width + minX, row * width + maxX, argb);
+		}
+	}
+
+	/**
+	 * Blends the pixels of a rectangle, inside the clip
+	 *
+	 * @param argb non-premultiplied colors in row-major order, {@code w} per row
+	 */
+	void drawPixels(int[] argb, int x, int y, int w, int h) {
+		int minX = clamp(x, clipMinX, clipMaxX);
+		int minY = clamp(y, clipMinY, clipMaxY);
+		int maxX = clamp(x + w, minX, clipMaxX);
+		int maxY = clamp(y + h, minY, clipMaxY);
+		for (int row = minY; row < maxY; row++) {
+			int source = (row - y) * w - x;
+			int target = row * width;
+			for (int column = minX; column < maxX; column++) {
+				int color = argb[source + column];
+				int alpha = color >>> 24;
+				if (alpha == 255) {
+					pixels[target + column] = color;
+				} else if (alpha != 0) {
+					blend(target + column, alpha, (color >>> 16) & 0xFF, (color >>> 8) & 0xFF, color & 0xFF);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void moveTo(double x, double y) {
+		closePath();
+		startX = currentX = x;
+		startY = currentY = y;
+	}
+
+	@Override
+	public void lineTo(double x, double y) {
+		line(currentX, currentY, x, y);
+		currentX = x;
+		currentY = y;
+	}
+
+	@Override
+	public void closePath() {
+		if (currentX != startX || currentY != startY) {
+			line(currentX, currentY, startX, startY);
+			currentX = startX;
+			currentY = startY;
+		}
+	}
+
+	/**
+	 * Closes the current subpath and blends the color into the pixels covered by all the subpaths added
+	 * since the last fill
+	 *
+	 * @param argb non-premultiplied color
+	 */
+	void fill(int argb) {
+		closePath();
+		if (dirtyMinY > dirtyMaxY) {
+			return;
+		}
+		int alpha = argb >>> 24;
+		int red = (argb >>> 16) & 0xFF;
+		int green = (argb >>> 8) & 0xFF;
+		int blue = argb & 0xFF;
+		int opaque = argb | 0xFF000000;
+		for (int y = dirtyMinY; y <= dirtyMaxY; y++) {
+			int minX = rowMinX[y];
+			int maxX = rowMaxX[y];
+			if (minX > maxX) {
+				continue;
+			}
+			rowMinX[y] = Integer.MAX_VALUE;
+			rowMaxX[y] = Integer.MIN_VALUE;
+			int areaOffset = y * stride;
+			int pixelsOffset = y * width;
+			float accumulator = 0f;
+			int x = minX;
+			while (x <= maxX) {
+				accumulator += area[areaOffset + x];
+				area[areaOffset + x] = 0f;
+				// The following cells without deltas have the same coverage
+				int runEnd = x + 1;
+				while (runEnd <= maxX && area[areaOffset + runEnd] == 0f) {
+					runEnd++;
+				}
+				if (runEnd > maxX) {
+					// The coverage after the last cell is zero, unless the edges on the right of the clip were dropped
+					runEnd = Math.max(runEnd, clipMaxX);
+				}
+				int sourceAlpha = (int) (Math.min(1f, Math.abs(accumulator)) * alpha + 0.5f);
+				int end = Math.min(runEnd, clipMaxX);
+				if (sourceAlpha == 255 && x < end) {
+					Arrays.fill(pixels, pixelsOffset + x, pixelsOffset + end, opaque);
+				} else if (sourceAlpha != 0) {
+					for (int i = x; i < end; i++) {
+						blend(pixelsOffset + i, sourceAlpha, red, green, blue);
+					}
+				}
+				x = runEnd;
+			}
+		}
+		resetDirty();
+	}
+
+	private void blend(int index, int sourceAlpha, int red, int green, int blue) {
+		int destination = pixels[index];
+		int destinationAlpha = destination >>> 24;
+		int inverseAlpha = 255 - sourceAlpha;
+		int destinationRed = (destination >>> 16) & 0xFF;
+		int destinationGreen = (destination >>> 8) & 0xFF;
+		int destinationBlue = destination & 0xFF;
+		if (destinationAlpha == 255) {
+			pixels[index] = 0xFF000000
+					| (div255(red * sourceAlpha + destinationRed * inverseAlpha) << 16)
+					| (div255(green * sourceAlpha + destinationGreen * inverseAlpha) << 8)
+					| div255(blue * sourceAlpha + destinationBlue * inverseAlpha);
+			return;
+		}
+		// Destination weight, premultiplied by the destination alpha
+		int destinationWeight = div255(destinationAlpha * inverseAlpha);
+		int outAlpha = sourceAlpha + destinationWeight;
+		int half = outAlpha / 2;
+		pixels[index] = (outAlpha << 24)
+				| (((red * sourceAlpha + destinationRed * destinationWeight + half) / outAlpha) << 16)
+				| (((green * sourceAlpha + destinationGreen * destinationWeight + half) / outAlpha) << 8)
+				| ((blue * sourceAlpha + destinationBlue * destinationWeight + half) / outAlpha);
+	}
+
+	/**
+	 * @return the value divided by 255 and rounded, for values up to 255 * 255
+	 */
+	private static int div255(int value) {
+		return ((value + 128) * 257) >>> 16;
+	}
+
+	/**
+	 * Adds an edge. The parts above and below the clip are ignored, the parts on the left are projected
+	 * on the left border of the clip, because they still change the winding of the pixels on their right,
+	 * and the parts on the right are ignored
+	 */
+	private void line(double x0, double y0, double x1, double y1) {
+		if (y0 == y1 || Double.isNaN(x0) || Double.isNaN(y0) || Double.isNaN(x1) || Double.isNaN(y1)) {
+			return;
+		}
+		float direction = 1f;
+		if (y0 > y1) {
+			double tmp = x0;
+			x0 = x1;
+			x1 = tmp;
+			tmp = y0;
+			y0 = y1;
+			y1 = tmp;
+			direction = -1f;
+		}
+		if (y1 <= clipMinY || y0 >= clipMaxY) {
+			return;
+		}
+		double dxdy = (x1 - x0) / (y1 - y0);
+		if (y0 < clipMinY) {
+			x0 += (clipMinY - y0) * dxdy;
+			y0 = clipMinY;
+		}
+		if (y1 > clipMaxY) {
+			x1 -= (y1 - clipMaxY) * dxdy;
+			y1 = clipMaxY;
+		}
+		if (x0 >= clipMaxX && x1 >= clipMaxX) {
+			return;
+		}
+		if (x0 <= clipMinX && x1 <= clipMinX) {
+			accumulate(clipMinX, y0, clipMinX, y1, direction);
+			return;
+		}
+		// Split the edge where it crosses the vertical borders of the clip
+		double crossMinY = crossingY(x0, y0, x1, y1, clipMinX);
+		double crossMaxY = crossingY(x0, y0, x1, y1, clipMaxX);
+		double firstY = Math.min(crossMinY, crossMaxY);
+		double secondY = Math.max(crossMinY, crossMaxY);
+		double pieceY = y0;
+		double pieceX = x0;
+		if (firstY < y1) {
+			double x = x0 + (firstY - y0) * dxdy;
+			clippedPiece(pieceX, pieceY, x, firstY, direction);
+			pieceX = x;
+			pieceY = firstY;
+		}
+		if (secondY < y1) {
+			double x = x0 + (secondY - y0) * dxdy;
+			clippedPiece(pieceX, pieceY, x, secondY, direction);
+			pieceX = x;
+			pieceY = secondY;
+		}
+		clippedPiece(pieceX, pieceY, x1, y1, direction);
+	}
+
+	/**
+	 * @return the y coordinate where the edge crosses the vertical line strictly between its ends,
+	 * or positive infinity
+	 */
+	private static double crossingY(double x0, double y0, double x1, double y1, double x) {
+		if ((x0 < x && x1 > x) || (x0 > x && x1 < x)) {
+			return y0 + (x - x0) * (y1 - y0) / (x1 - x0);
+		}
+		return Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Adds a piece of edge that is on a single side of each vertical border of the clip
+	 */
+	private void clippedPiece(double x0, double y0, double x1, double y1, float direction) {
+		if (y0 >= y1) {
+			return;
+		}
+		double middleX = (x0 + x1) / 2d;
+		if (middleX >= clipMaxX) {
+			return;
+		}
+		if (middleX <= clipMinX) {
+			accumulate(clipMinX, y0, clipMinX, y1, direction);
+			return;
+		}
+		accumulate(Math.max(clipMinX, Math.min(x0, clipMaxX)),
+				y0,
+				Math.max(clipMinX, Math.min(x1, clipMaxX)),
+				y1,
+				direction
+		);
+	}
+
+	/**
+	 * Adds the signed area covered by the edge in each pixel of the rows that it crosses
+	 *
+	 * @param y0 top of the edge, less than {@code y1}
+	 */
+	private void accumulate(double x0, double y0, double x1, double y1, float direction) {
+		double dxdy = (x1 - x0) / (y1 - y0);
+		double x = x0;
+		int firstRow = (int) y0;
+		int lastRow = (int) Math.ceil(y1) - 1;
+		float[] area = this.area;
+		for (int y = firstRow; y <= lastRow; y++) {
+			int rowOffset = y * stride;
+			double dy = Math.min(y + 1d, y1) - Math.max(y, y0);
+			double nextX = x + dxdy * dy;
+			double d = dy * direction;
+			double left = Math.min(x, nextX);
+			double right = Math.max(x, nextX);
+			double leftFloor = Math.floor(left);
+			int leftIndex = (int) leftFloor;
+			double rightCeil = Math.ceil(right);
+			int rightIndex = (int) rightCeil;
+			if (rightIndex <= leftIndex + 1) {
+				// The edge stays inside a single pixel of this row
+				double middle = 0.5d * (x + nextX) - leftFloor;
+				area[rowOffset + leftIndex] += (float) (d - d * middle);
+				area[rowOffset + leftIndex + 1] += (float) (d * middle);
+			} else {
+				double inverseWidth = 1d / (right - left);
+				double leftFraction = left - leftFloor;
+				double firstArea = 0.5d * inverseWidth * (1 - leftFraction) * (1 - leftFraction);
+				double rightFraction = right - rightCeil + 1;
+				double lastArea = 0.5d * inverseWidth * rightFraction * rightFraction;
+				area[rowOffset + leftIndex] += (float) (d * firstArea);
+				if (rightIndex == leftIndex + 2) {
+					area[rowOffset + leftIndex + 1] += (float) (d * (1 - firstArea - lastArea));
+				} else {
+					double secondArea = inverseWidth * (1.5d - leftFraction);
+					area[rowOffset + leftIndex + 1] += (float) (d * (secondArea - firstArea));
+					float step = (float) (d * inverseWidth);
+					for (int i = leftIndex + 2; i < rightIndex - 1; i++) {
+						area[rowOffset + i] += step;
+					}
+					double beforeLastArea = secondArea + (rightIndex - leftIndex - 3) * inverseWidth;
+					area[rowOffset + rightIndex - 1] += (float) (d * (1 - beforeLastArea - lastArea));
+				}
+				area[rowOffset + rightIndex] += (float) (d * lastArea);
+			}
+			if (leftIndex < rowMinX[y]) {
+				rowMinX[y] = leftIndex;
+			}
+			int lastIndex = Math.max(leftIndex + 1, rightIndex);
+			if (lastIndex > rowMaxX[y]) {
+				rowMaxX[y] = lastIndex;
+			}
+			x = nextX;
+		}
+		if (firstRow < dirtyMinY) {
+			dirtyMinY = firstRow;
+		}
+		if (lastRow > dirtyMaxY) {
+			dirtyMaxY = lastRow;
+		}
+	}
+
+	/**
+	 * Clears the edges that have not been filled, left by a render that failed
+	 */
+	private void discard() {
+		for (int y = dirtyMinY; y <= dirtyMaxY; y++) {
+			if (rowMinX[y] <= rowMaxX[y]) {
+				Arrays.fill(area, y * stride + rowMinX[y], y * stride + rowMaxX[y] + 1, 0f);
+				rowMinX[y] = Integer.MAX_VALUE;
+				rowMaxX[y] = Integer.MIN_VALUE;
+			}
+		}
+		resetDirty();
+	}
+
+	private void resetDirty() {
+		dirtyMinY = Integer.MAX_VALUE;
+		dirtyMaxY = Integer.MIN_VALUE;
+	}
+
+	private static int clamp(int value, int min, int max) {
+		return Math.max(min, Math.min(value, max));
+	}
+}
@@ -0,0 +1,234 @@
+package it.cavallium.jlinegraph;
+
+import java.util.Arrays;
+
+/**
+ * Converts the received polylines into the outline of their stroke, sent to another sink.
+ * <p>
+ * The outline is made of overlapping polygons, all with a positive signed area: a quad for each segment,
+ * a wedge of circle for each join and a circle for each round cap. Joins are always round,
+ * the renderer doesn't need the other kinds.
+ */
+final class SoftwareStroker implements PathSink {
+
+	/**
+	 * Turns below this angle, in radians, don't need a join: the gap between the segments is invisible
+	 */
+	private static final double MIN_JOIN_ANGLE = 0.05d;
+	private static final double MIN_JOIN_COS = Math.cos(MIN_JOIN_ANGLE);
+
+	private final PathSink output;
+
+	private double halfWidth;
+	private boolean roundCap;
+	private float[] dash;
+
+	private double[] xs = new double[64];
+	private double[] ys = new double[64];
+	private int count;
+
+	private double[] dashXs = new double[16];
+	private double[] dashYs = new double[16];
+
+	SoftwareStroker(PathSink output) {
+		this.output = output;
+	}
+
+	/**
+	 * Changes the stroke of the next subpaths
+	 *
+	 * @param roundCap true for round caps, false for butt caps
+	 * @param dash lengths of the alternating dashes and gaps, starting from a dash, or null for a solid line
+	 */
+	void setStroke(double width, boolean roundCap, float[] dash) {
+		this.halfWidth = width / 2d;
+		this.roundCap = roundCap;
+		this.dash = dash;
+	}
+
+	@Override
+	public void moveTo(double x, double y) {
+		finish();
+		add(x, y);
+	}
+
+	@Override
+	public void lineTo(double x, double y) {
+		if (count == 0) {
+			add(x, y);
+		} else if (xs[count - 1] != x || ys[count - 1] != y) {
+			add(x, y);
+		}
+	}
+
+	@Override
+	public void closePath() {
+		if (count > 1 && (xs[count - 1] != xs[0] || ys[count - 1] != ys[0])) {
+			add(xs[0], ys[0]);
+		}
+		if (count > 2) {
+			strokeSubpath(true);
+		} else {
+			strokeSubpath(false);
+		}
+		count = 0;
+	}
+
+	/**
+	 * Strokes the last subpath, if it's still open
+	 */
+	void finish() {
+		if (count > 0) {
+			strokeSubpath(false);
+			count = 0;
+		}
+	}
+
+	private void add(double x, double y) {
+		if (count == xs.length) {
+			xs = Arrays.copyOf(xs, count * 2);
+			ys = Arrays.copyOf(ys, count * 2);
+		}
+		xs[count] = x;
+		ys[count] = y;
+		count++;
+	}
+
+	private void strokeSubpath(boolean closed) {
+		if (halfWidth <= 0d) {
+			return;
+		}
+		if (dash != null) {
+			strokeDashes();
+		} else {
+			strokePolyline(xs, ys, count, closed);
+		}
+	}
+
+	/**
+	 * Splits the subpath into the dashes and strokes each of them as an open polyline
+	 */
+	private void strokeDashes() {
+		int dashIndex = 0;
+		double dashLeft = dash[0];
+		boolean on = true;
+		int dashCount = 0;
+		if (count > 0) {
+			dashCount = addDashPoint(dashCount, xs[0], ys[0]);
+		}
+		for (int i = 1; i < count; i++) {
+			double startX = xs[i - 1];
+			double startY = ys[i - 1];
+			double segmentLength = Math.hypot(xs[i] - startX, ys[i] - startY);
+			double done = 0d;
+			while (segmentLength - done > dashLeft) {
+				done += dashLeft;
+				double t = done / segmentLength;
+				double x = startX + (xs[i] - startX) * t;
+				double y = startY + (ys[i] - startY) * t;
+				if (on) {
+					dashCount = addDashPoint(dashCount, x, y);
+					strokePolyline(dashXs, dashYs, dashCount, false);
+					dashCount = 0;
+				} else {
+					dashCount = addDashPoint(0, x, y);
+				}
+				on = !on;
+				dashIndex = (dashIndex + 1) % dash.length;
+				dashLeft = dash[dashIndex];
+			}
+			dashLeft -= segmentLength - done;
+			if (on) {
+				dashCount = addDashPoint(dashCount, xs[i], ys[i]);
+			}
+		}
+		if (on && dashCount > 0) {
+			strokePolyline(dashXs, dashYs, dashCount, false);
+		}
+	}
+
+	private int addDashPoint(int dashCount, double x, double y) {
+		if (dashCount == dashXs.length) {
+			dashXs = Arrays.copyOf(dashXs, dashCount * 2);
+			dashYs = Arrays.copyOf(dashYs, dashCount * 2);
+		}
+		dashXs[dashCount] = x;
+		dashYs[dashCount] = y;
+		return dashCount + 1;
+	}
+
+	/**
+	 * @param closed true if the last point is equal to the first one and the polyline needs a join there
+	 */
+	private void strokePolyline(double[] xs, double[] ys, int count, boolean closed) {
+		if (count == 1) {
+			if (roundCap) {
+				PathSink.circle(output, xs[0], ys[0], halfWidth);
+			}
+			return;
+		}
+		for (int i = 1; i < count; i++) {
+			segment(xs[i - 1], ys[i - 1], xs[i], ys[i]);
+		}
+		for (int i = 1; i < count - 1; i++) {
+			join(xs[i - 1], ys[i - 1], xs[i], ys[i], xs[i + 1], ys[i + 1]);
+		}
+		if (closed) {
+			join(xs[count - 2], ys[count - 2], xs[0], ys[0], xs[1], ys[1]);
+		} else if (roundCap) {
+			PathSink.circle(output, xs[0], ys[0], halfWidth);
+			PathSink.circle(output, xs[count - 1], ys[count - 1], halfWidth);
+		}
+	}
+
+	private void segment(double x0, double y0, double x1, double y1) {
+		double dx = x1 - x0;
+		double dy = y1 - y0;
+		double length = Math.hypot(dx, dy);
+		if (length == 0d) {
+			return;
+		}
+		double normalX = -dy / length * halfWidth;
+		double normalY = dx / length * halfWidth;
+		output.moveTo(x0 - normalX, y0 - normalY);
+		output.lineTo(x1 - normalX, y1 - normalY);
+		output.lineTo(x1 + normalX, y1 + normalY);
+		output.lineTo(x0 + normalX, y0 + normalY);
+		output.closePath();
+	}
+
+	/**
+	 * Fills the wedge of circle between the outer corners of the two segments
+	 */
+	private void join(double x0, double y0, double x1, double y1, double x2, double y2) {
+		double ax = x1 - x0;
+		double ay = y1 - y0;
+		double bx = x2 - x1;
+		double by = y2 - y1;
+		double lengths = Math.hypot(ax, ay) * Math.hypot(bx, by);
+		if (lengths == 0d || (ax * bx + ay * by) / lengths > MIN_JOIN_COS) {
+			return;
+		}
+		// The outer side is the opposite of the direction of the turn
+		double side = ax * by - ay * bx > 0 ? -1d : 1d;
+		double fromAngle = Math.atan2(ax * side, -ay * side);
+		double sweep = Math.atan2(bx * side, -by * side) - fromAngle;
+		if (sweep > Math.PI) {
+			sweep -= 2 * Math.PI;
+		} else if (sweep < -Math.PI) {
+			sweep += 2 * Math.PI;
+		}
+		// Always walk the arc with increasing angles, so the wedge has a positive area
+		if (sweep < 0) {
+			fromAngle += sweep;
+			sweep = -sweep;
+		}
+		int steps = Math.max(1, (int) Math.ceil(sweep * halfWidth / 0.75d));
+		output.moveTo(x1, y1);
+		for (int i = 0; i <= steps; i++) {
+			double angle = fromAngle + sweep * i / steps;
+			output.lineTo(x1 + halfWidth * Math.cos(angle), y1 + halfWidth * Math.sin(angle));
+		}
+		output.closePath();
+	}
+}
@@ -0,0 +1,288 @@
+package it.cavallium.jlinegraph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-stroke vector font of the printable ASCII characters, drawn by the software renderer without
+ * loading system fonts. Its metrics also lay out the SVG documents.
+ * <p>
+ * The glyphs are designed on a grid with the baseline at 0, the cap height at 10 and the x-height at 7, with
+ * y pointing up. Their proportions follow the default sans-serif font of the JDK, so the layout is close to the
+ * one of the AWT renderers. Each glyph is its advance followed by its strokes, separated by {@code ;}.
+ * A stroke is a list of points {@code x,y}, arcs {@code A cx,cy,rx,ry,fromDegrees,toDegrees} and ellipses
+ * {@code E cx,cy,rx,ry}, joined in order.
+ */
+final class StrokeFont {
+
+	/**
+	 * Size of a grid unit, in ems
+	 */
+	private static final double UNIT = 0.0729d;
+	/**
+	 * Stroke width, in ems
+	 */
+	private static final double WEIGHT = 0.085d;
+	private static final double ARC_STEP_DEGREES = 15d;
+
+	private static final String[] GLYPH_SOURCES = {
+			/*   */ "4.4",
+			/* ! */ "5.5; 2.75,10 2.75,2.8; 2.75,0.2 2.75,0.8",
+			/* " */ "6.3; 2,10 2,7; 4.3,10 4.3,7",
+			/* # */ "11.5; 3.8,0 5,10; 7.3,0 8.5,10; 1.8,3.3 10,3.3; 2.2,6.7 10.4,6.7",
+			/* $ */ "8.7; A 4.3,7.3,2.8,1.9,30,270 A 4.3,3.5,3,1.9,90,-150; 4.3,11 4.3,-1.6",
+			/* % */ "13; E 3,7.6,1.9,2.4; E 10,2.4,1.9,2.4; 10,10 3,0",
+			/* & */ "10.7; 9.8,0 3.2,7 A 4.5,8.3,1.8,1.7,225,-45 A 4.4,2.7,3,2.7,60,330 8.6,4",
+			/* ' */ "3.8; 1.9,10 1.9,7",
+			/* ( */ "5.4; A 6.5,3.5,4,9.5,135,225",
+			/* ) */ "5.4; A -1.1,3.5,4,9.5,45,-45",
+			/* * */ "6.9; 3.45,10 3.45,6; 1.5,9 5.4,7; 1.5,7 5.4,9",
+			/* + */ "11.5; 5.75,1 5.75,8.4; 2,4.7 9.5,4.7",
+			/* , */ "4.4; 2.2,1.2 2.2,0 1.2,-2",
+			/* - */ "5; 1,3.6 4,3.6",
+			/* . */ "4.4; 2.2,0.2 2.2,0.8",
+			/* / */ "4.6; 4,10.5 0.6,-1.2",
+			/* 0 */ "8.7; E 4.35,5,3,5",
+			/* 1 */ "8.7; 2.2,8 4.6,10 4.6,0",
+			/* 2 */ "8.7; A 4.35,7.2,2.9,2.8,160,-30 1.4,0 7.3,0",
+			/* 3 */ "8.7; A 4.3,7.6,2.6,2.4,150,-90 A 4.3,2.6,2.9,2.6,90,-150",
+			/* 4 */ "8.7; 5.8,0 5.8,10 1,3 7.6,3",
+			/* 5 */ "8.7; 7.2,10 2,10 1.6,5.8 A 4.2,3.3,3,3.3,140,-150",
+			/* 6 */ "8.7; E 4.4,3.2,3,3.2; A 6.4,4.5,5,5.5,95,180 1.4,3.2",
+			/* 7 */ "8.7; 1.2,10 7.5,10 3.2,0",
+			/* 8 */ "8.7; E 4.35,7.55,2.5,2.45; E 4.35,2.55,2.9,2.55",
+			/* 9 */ "8.7; E 4.3,6.8,3,3.2; 7.3,6.8 A 2.3,5.5,5,5.5,0,-85",
+			/* : */ "4.6; 2.3,6.4 2.3,7; 2.3,0.2 2.3,0.8",
+			/* ; */ "4.6; 2.3,6.4 2.3,7; 2.3,1.2 2.3,0 1.3,-2",
+			/* < */ "11.5; 9.5,8 2,4.7 9.5,1.4",
+			/* = */ "11.5; 2,6.4 9.5,6.4; 2,3 9.5,3",
+			/* > */ "11.5; 2,8 9.5,4.7 2,1.4",
+			/* ? */ "7.3; A 3.6,7.6,2.6,2.4,150,-60 3.6,4.3 3.6,2.8; 3.6,0.2 3.6,0.8",
+			/* @ */ "13.7; E 6.8,4,2.2,2.6; 9,6.6 9,2.4 A 10.2,2.4,1.2,1.2,180,360 A 6.8,4,4.6,5.6,0,310",
+			/* A */ "9.4; 0.8,0 4.7,10 8.6,0; 2.2,3.5 7.2,3.5",
+			/* B */ "9.4; 1.4,10 6,10 A 6,7.65,2.4,2.35,90,-90 1.4,5.3; 6,5.3 A 6.2,2.65,2.7,2.65,90,-90 1.4,0 1.4,10",
+			/* C */ "9.6; A 5.4,5,4.3,5,45,315",
+			/* D */ "10.6; 1.4,0 1.4,10 4.6,10 A 4.6,5,4.6,5,90,-90 1.4,0",
+			/* E */ "8.7; 7.4,10 1.4,10 1.4,0 7.4,0; 1.4,5.2 6.8,5.2",
+			/* F */ "7.9; 7,10 1.4,10 1.4,0; 1.4,5.2 6.4,5.2",
+			/* G */ "10.6; A 5.6,5,4.4,5,45,340 9.8,4.6 6.2,4.6",
+			/* H */ "10.3; 1.4,0 1.4,10; 8.9,0 8.9,10; 1.4,5.2 8.9,5.2",
+			/* I */ "4; 2,0 2,10",
+			/* J */ "4; 2.2,10 2.2,0.8 A 0.4,0.8,1.8,1.8,0,-120",
+			/* K */ "9; 1.4,0 1.4,10; 8.4,10 1.4,3.4; 3.6,5.5 8.6,0",
+			/* L */ "7.6; 1.4,10 1.4,0 7.2,0",
+			/* M */ "11.8; 1.4,0 1.4,10 5.9,0 10.4,10 10.4,0",
+			/* N */ "10.3; 1.4,0 1.4,10 8.9,0 8.9,10",
+			/* O */ "10.8; E 5.4,5,4.2,5.1",
+			/* P */ "8.3; 1.4,0 1.4,10 5.2,10 A 5.2,7.2,2.6,2.8,90,-90 1.4,4.4",
+			/* Q */ "10.8; E 5.4,5,4.2,5.1; 6,1.8 9,-1.8",
+			/* R */ "9.5; 1.4,0 1.4,10 5.4,10 A 5.4,7.4,2.5,2.6,90,-90 1.4,4.8; 4.8,4.8 8.6,0",
+			/* S */ "8.7; A 4.3,7.6,2.8,2.4,30,270 A 4.3,2.6,3.1,2.6,90,-150",
+			/* T */ "8.4; 0.3,10 8.1,10; 4.2,10 4.2,0",
+			/* U */ "10; 1.4,10 1.4,3.6 A 5,3.6,3.6,3.6,180,360 8.6,10",
+			/* V */ "9.4; 0.6,10 4.7,0 8.8,10",
+			/* W */ "13.6; 0.6,10 3.5,0 6.8,9 10.1,0 13,10",
+			/* X */ "9.4; 1,10 8.4,0; 8.4,10 1,0",
+			/* Y */ "8.4; 0.4,10 4.2,5 8,10; 4.2,5 4.2,0",
+			/* Z */ "9.4; 1.2,10 8.2,10 1.2,0 8.2,0",
+			/* [ */ "5.4; 4.2,10.6 2,10.6 2,-2.2 4.2,-2.2",
+			/* \ */ "4.6; 0.6,10.5 4,-1.2",
+			/* ] */ "5.4; 1.2,10.6 3.4,10.6 3.4,-2.2 1.2,-2.2",
+			/* ^ */ "11.5; 2,6.4 5.75,10 9.5,6.4",
+			/* _ */ "6.9; 0,-2.4 6.9,-2.4",
+			/* ` */ "6.9; 2.4,11 3.8,9.4",
+			/* a */ "8.4; E 4,3.5,2.9,3.5; 6.9,7 6.9,0",
+			/* b */ "8.7; 1.3,10.4 1.3,0; E 4.5,3.5,3,3.5",
+			/* c */ "7.5; A 4,3.5,3,3.5,45,315",
+			/* d */ "8.7; 7.4,10.4 7.4,0; E 4.2,3.5,3,3.5",
+			/* e */ "8.4; 1.2,3.6 7.2,3.6 A 4.2,3.5,3,3.5,0,300",
+			/* f */ "4.8; A 3.6,8.8,1.4,1.6,60,180 2.2,0; 0.6,7 4.4,7",
+			/* g */ "8.7; E 4.2,3.5,3,3.5; 7.2,7 7.2,-0.8 A 4.2,-0.8,3,2.2,0,-150",
+			/* h */ "8.7; 1.3,10.4 1.3,0; 1.3,4.4 A 4.2,4.4,2.9,2.6,180,0 7.1,0",
+			/* i */ "3.8; 1.9,0 1.9,7; 1.9,9.2 1.9,10",
+			/* j */ "3.8; 1.9,7 1.9,-1.6 A 0.4,-1.6,1.5,1.4,0,-110; 1.9,9.2 1.9,10",
+			/* k */ "7.9; 1.3,10.4 1.3,0; 6.8,7 1.3,2.4; 3.2,4 7.2,0",
+			/* l */ "3.8; 1.9,10.4 1.9,0",
+			/* m */ "13.4; 1.3,0 1.3,7; 1.3,4.6 A 4.1,4.6,2.8,2.4,180,0 6.9,0; 6.9,4.6 A 9.7,4.6,2.8,2.4,180,0 12.5,0",
+			/* n */ "8.7; 1.3,0 1.3,7; 1.3,4.4 A 4.2,4.4,2.9,2.6,180,0 7.1,0",
+			/* o */ "8.4; E 4.2,3.5,3,3.5",
+			/* p */ "8.7; 1.3,7 1.3,-3; E 4.5,3.5,3,3.5",
+			/* q */ "8.7; 7.4,7 7.4,-3; E 4.2,3.5,3,3.5",
+			/* r */ "5.6; 1.3,0 1.3,7; 1.3,4 A 4.6,3.5,3.3,3.5,170,90",
+			/* s */ "7.1; A 3.5,5.3,2.4,1.7,20,270 A 3.5,1.8,2.6,1.8,90,-160",
+			/* t */ "5.4; 2.2,9 2.2,1.4 A 3.8,1.4,1.6,1.4,180,290; 0.6,7 4.8,7",
+			/* u */ "8.7; 1.3,7 1.3,2.6 A 4.2,2.6,2.9,2.6,180,360; 7.1,7 7.1,0",
+			/* v */ "8.1; 0.6,7 4.05,0 7.5,7",
+			/* w */ "11.2; 0.6,7 3,0 5.6,6.4 8.2,0 10.6,7",
+			/* x */ "8.1; 0.8,7 7.3,0; 7.3,7 0.8,0",
+			/* y */ "8.1; 0.6,7 4.05,0; 7.5,7 3.6,-1.8 2.8,-2.8 1.4,-3",
+			/* z */ "7.2; 1,7 6.2,7 1,0 6.4,0",
+			/* { */ "8.7; A 6.2,9.2,1.8,1.4,90,180 4.4,5.6 3,4.2 4.4,2.8 A 6.2,-0.8,1.8,1.4,180,270",
+			/* | */ "4.6; 2.3,10.6 2.3,-3",
+			/* } */ "8.7; A 2.5,9.2,1.8,1.4,90,0 4.3,5.6 5.7,4.2 4.3,2.8 A 2.5,-0.8,1.8,1.4,0,-90",
+			/* ~ */ "11.5; 2,4.2 3.8,5.4 7.6,4 9.5,5.2",
+	};
+
+	/**
+	 * Drawn in place of the characters that the font doesn't have
+	 */
+	private static final Glyph MISSING_GLYPH = parseGlyph("7; 1,0 1,10 6,10 6,0 1,0");
+	private static final Glyph[] GLYPHS = new Glyph[GLYPH_SOURCES.length];
+
+	static {
+		for (int i = 0; i < GLYPH_SOURCES.length; i++) {
+			GLYPHS[i] = parseGlyph(GLYPH_SOURCES[i]);
+		}
+	}
+
+	private StrokeFont() {
+	}
+
+	/**
+	 * @return the metrics of the font at the specified size, in pixels per em
+	 */
+	static Metrics metrics(float size) {
+		return new Metrics(size);
+	}
+
+	/**
+	 * Strokes the text with the baseline starting at the specified position. The stroke of the stroker is replaced
+	 *
+	 * @param rotated true to rotate the text by 90 degrees counterclockwise around the start of the baseline
+	 */
+	static void drawText(SoftwareStroker stroker, String text, double x, double y, float size, boolean rotated) {
+		double scale = UNIT * size;
+		stroker.setStroke(WEIGHT * size, true, null);
+		double advance = 0d;
+		for (int i = 0; i < text.length(); ) {
+			int codePoint = text.codePointAt(i);
+			i += Character.charCount(codePoint);
+			var glyph = glyph(codePoint);
+			for (double[] stroke : glyph.strokes()) {
+				for (int p = 0; p < stroke.length; p += 2) {
+					double alongBaseline = (advance + stroke[p]) * scale;
+					double aboveBaseline = stroke[p + 1] * scale;
+					double pointX = rotated ? x - aboveBaseline : x + alongBaseline;
+					double pointY = rotated ? y - alongBaseline : y - aboveBaseline;
+					if (p == 0) {
+						stroker.moveTo(pointX, pointY);
+					} else {
+						stroker.lineTo(pointX, pointY);
+					}
+				}
+			}
+			advance += glyph.advance();
+		}
+		stroker.finish();
+	}
+
+	private static Glyph glyph(int codePoint) {
+		if (codePoint >= ' ' && codePoint - ' ' < GLYPHS.length) {
+			return GLYPHS[codePoint - ' '];
+		}
+		return MISSING_GLYPH;
+	}
+
+	private static Glyph parseGlyph(String source) {
+		var parts = source.split(";");
+		var strokes = new ArrayList<double[]>(parts.length - 1);
+		for (int i = 1; i < parts.length; i++) {
+			strokes.add(parseStroke(parts[i].trim()));
+		}
+		return new Glyph(Double.parseDouble(parts[0]), strokes);
+	}
+
+	private static double[] parseStroke(String source) {
+		var points = new ArrayList<Double>();
+		var tokens = source.split(" ");
+		for (int i = 0; i < tokens.length; i++) {
+			switch (tokens[i]) {
+				case "A" -> {
+					var arc = parseNumbers(tokens[++i]);
+					addArc(points, arc[0], arc[1], arc[2], arc[3], arc[4], arc[5]);
+				}
+				case "E" -> {
+					var ellipse = parseNumbers(tokens[++i]);
+					addArc(points, ellipse[0], ellipse[1], ellipse[2], ellipse[3], 0, 360);
+				}
+				default -> {
+					var point = parseNumbers(tokens[i]);
+					points.add(point[0]);
+					points.add(point[1]);
+				}
+			}
+		}
+		var stroke = new double[points.size()];
+		for (int i = 0; i < stroke.length; i++) {
+			stroke[i] = points.get(i);
+		}
+		return stroke;
+	}
+
+	private static void addArc(List<Double> points,
+			double centerX,
+			double centerY,
+			double radiusX,
+			double radiusY,
+			double fromDegrees,
+			double toDegrees) {
+		int steps = Math.max(1, (int) Math.ceil(Math.abs(toDegrees - fromDegrees) / ARC_STEP_DEGREES));
+		for (int i = 0; i <= steps; i++) {
+			double angle = Math.toRadians(fromDegrees + (toDegrees - fromDegrees) * i / steps);
+			points.add(centerX + radiusX * Math.cos(angle));
+			points.add(centerY + radiusY * Math.sin(angle));
+		}
+	}
+
+	private static double[] parseNumbers(String token) {
+		var parts = token.split(",");
+		var numbers = new double[parts.length];
+		for (int i = 0; i < parts.length; i++) {
+			numbers[i] = Double.parseDouble(parts[i]);
+		}
+		return numbers;
+	}
+
+	/**
+	 * @param advance horizontal advance, in grid units
+	 * @param strokes polylines of the glyph as sequences of x and y coordinates, in grid units
+	 */
+	private record Glyph(double advance, List<double[]> strokes) {}
+
+	/**
+	 * Metrics of the stroke font, rounded to integers like the AWT ones
+	 */
+	record Metrics(float size) implements TextMetrics {
+
+		@Override
+		public int ascent() {
+			return (int) Math.ceil(0.928d * size);
+		}
+
+		@Override
+		public int descent() {
+			return (int) Math.ceil(0.236d * size);
+		}
+
+		@Override
+		public int height() {
+			return ascent() + descent();
+		}
+
+		@Override
+		public int stringWidth(String text) {
+			double advance = 0d;
+			for (int i = 0; i < text.length(); ) {
+				int codePoint = text.codePointAt(i);
+				i += Character.charCount(codePoint);
+				advance += glyph(codePoint).advance();
+			}
+			return (int) Math.round(advance * UNIT * size);
+		}
+
+		@Override
+		public TextMetrics deriveSize(float size) {
+			return new Metrics(size);
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package it.cavallium.jlinegraph;
+
+/**
+ * Metrics of a font at a specific size, as used by {@link LayoutGeometry}
+ */
+interface TextMetrics {
+
+	float size();
+
+	int ascent();
+
+	int descent();
+
+	/**
+	 * @return distance between the baselines of two lines of text
+	 */
+	int height();
+
+	int stringWidth(String text);
+
+	/**
+	 * @return the metrics of the same font at a different size
+	 */
+	TextMetrics deriveSize(float size);
+}
@@ -0,0 +1,130 @@
+package it.cavallium.jlinegraph;
+
+import it.cavallium.jlinegraph.GraphLayout.LabelWithOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Ticks of an axis computed into reusable arrays: values, raster offsets and text of the visible labels.
+ * An instance is reused by each thread for all the axes that it lays out, and it keeps the label lists
+ * of the recent layouts, so laying out the same axes again with a {@link CachedValueFormat} doesn't allocate
+ */
+final class Ticks {
+
+	private static final ThreadLocal<Ticks> TICKS = ThreadLocal.withInitial(Ticks::new);
+	/**
+	 * Number of label lists kept, a power of two
+	 */
+	private static final int LABELS_CACHE_SIZE = 16;
+
+	double[] values = new double[32];
+	double[] offsets = new double[32];
+	/**
+	 * Formatted text of the labels, null for the hidden ones
+	 */
+	String[] texts = new String[32];
+	int count;
+
+	/**
+	 * Recent label lists, indexed by the hash of their values and offsets
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private final List<LabelWithOffset>[] labels = new List[LABELS_CACHE_SIZE];
+
+	private Ticks() {
+	}
+
+	/**
+	 * @return the ticks of the current thread, to be computed again before use
+	 */
+	static Ticks get() {
+		return TICKS.get();
+	}
+
+	/**
+	 * Computes the ticks from the minimum value to the maximum, with all the labels hidden.
+	 * The raster offsets are relative to the start of the axis: the first tick is at 0, or at the length if reversed
+	 *
+	 * @param spacing distance between two ticks, no ticks are computed if it's not positive
+	 * @param length raster length of the axis
+	 * @param reversed true if the raster offsets go from the end of the axis to its start, like on the y axis
+	 * @param maxCount maximum number of ticks
+	 */
+	void compute(double min, double max, double spacing, double length, boolean reversed, int maxCount) {
+		Arrays.fill(texts, 0, count, null);
+		count = 0;
+		if (!(spacing > 0)) {
+			return;
+		}
+		double singleRasterOffset = length / ((max - min) / spacing);
+		double currentValue = min;
+		double currentRasterOffset = reversed ? length : 0;
+		while (currentValue <= max && count < maxCount) {
+			if (count == values.length) {
+				int newLength = Math.min(maxCount, count * 2);
+				values = Arrays.copyOf(values, newLength);
+				offsets = Arrays.copyOf(offsets, newLength);
+				texts = Arrays.copyOf(texts, newLength);
+			}
+			values[count] = currentValue;
+			offsets[count] = currentRasterOffset;
+			count++;
+			currentValue = min + count * spacing;
+			currentRasterOffset = reversed ? length - count * singleRasterOffset : count * singleRasterOffset;
+		}
+	}
+
+	/**
+	 * Formats a value. Only a {@link CachedValueFormat} reuses the texts of the values formatted before,
+	 * any other format is called every time, because it may not be pure
+	 */
+	String format(Function<Number, String> format, double value) {
+		if (format instanceof CachedValueFormat cachedValueFormat) {
+			return cachedValueFormat.format(value);
+		}
+		return format.apply(value);
+	}
+
+	/**
+	 * @return the ticks with their labels, the hidden ones with an empty text. The list of a recent layout is returned
+	 * again if it has the same labels
+	 */
+	List<LabelWithOffset> toLabels() {
+		int hash = count;
+		for (int i = 0; i < count; i++) {
+			long bits = Double.doubleToLongBits(values[i]) * 31 + Double.doubleToLongBits(offsets[i]);
+			hash = hash * 31 + (int) (bits ^ (bits >>> 32));
+		}
+		int index = (hash ^ (hash >>> 16)) & (LABELS_CACHE_SIZE - 1);
+		var cached = labels[index];
+		if (cached != null && isSame(cached)) {
+			return cached;
+		}
+		var result = new LabelWithOffset[count];
+		for (int i = 0; i < count; i++) {
+			result[i] = new LabelWithOffset(values[i], offsets[i], texts[i] != null ? texts[i] : "");
+		}
+		var list = List.of(result);
+		labels[index] = list;
+		return list;
+	}
+
+	/**
+	 * @return true if the labels have the values, the offsets and the same texts of the ticks
+	 */
+	private boolean isSame(List<LabelWithOffset> labels) {
+		if (labels.size() != count) {
+			return false;
+		}
+		for (int i = 0; i < count; i++) {
+			var label = labels.get(i);
+			if (Double.doubleToLongBits(label.value()) != Double.doubleToLongBits(values[i])
+					|| Double.doubleToLongBits(label.rasterOffset()) != Double.doubleToLongBits(offsets[i])
+					|| !label.formattedText().equals(texts[i] != null ? texts[i] : "")) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,118 @@
+package it.cavallium.jlinegraph;
+
+import java.nio.DoubleBuffer;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Columnar storage of the vertices of a series.
+ * <p>
+ * Coordinates are read by index, so implementations can keep them in primitive arrays
+ * or off-heap buffers instead of allocating one {@link Vertex} per point.
+ * <p>
+ * Columns are compared by identity, except the ones created from arrays or from a list of vertices,
+ * that are equal to the columns of the same kind with the same vertices. Comparing or hashing them,
+ * or a {@link SeriesData} that contains them, reads all their vertices.
+ */
+public interface VertexColumns {
+
+	/**
+	 * Creates columns backed by the given arrays. The arrays are not copied and their bounds and order
+	 * are computed once and cached, so they must not change after the columns are created: to reuse and refill
+	 * the arrays, create the columns with {@link #copyOf(double[], double[])}, or append the vertices
+	 * of live data to a {@link VertexRingBuffer}.
+	 * <p>
+	 * The columns are equal to the other columns created from arrays with the same coordinates.
+	 *
+	 * @param xs x coordinates
+	 * @param ys y coordinates, same length as xs
+	 */
+	static VertexColumns of(double[] xs, double[] ys) {
+		return new ArrayVertexColumns(xs, ys);
+	}
+
+	/**
+	 * Creates columns backed by copies of the given arrays, that can be changed afterwards
+	 *
+	 * @param xs x coordinates
+	 * @param ys y coordinates, same length as xs
+	 */
+	static VertexColumns copyOf(double[] xs, double[] ys) {
+		if (xs.length != ys.length) {
+			throw new IllegalArgumentException("xs and ys have different lengths");
+		}
+		return new ArrayVertexColumns(xs.clone(), ys.clone());
+	}
+
+	/**
+	 * Creates columns backed by the remaining elements of the given buffers. The buffers are not copied
+	 * and their bounds and order are computed once and cached, so their elements must not change
+	 * after the columns are created.
+	 *
+	 * @param xs x coordinates
+	 * @param ys y coordinates, same number of remaining elements as xs
+	 */
+	static VertexColumns of(DoubleBuffer xs, DoubleBuffer ys) {
+		return new BufferVertexColumns(xs, ys);
+	}
+
+	/**
+	 * Creates columns that read the given vertices.
+	 * Random access lists are wrapped and are equal to the columns that wrap an equal list,
+	 * other lists are copied into arrays.
+	 *
+	 * @param vertices the vertices
+	 */
+	static VertexColumns of(List<Vertex> vertices) {
+		if (vertices instanceof VertexColumnsList columnsList) {
+			return columnsList.columns();
+		} else if (vertices instanceof RandomAccess) {
+			return new ListVertexColumns(vertices);
+		} else {
+			var xs = new double[vertices.size()];
+			var ys = new double[vertices.size()];
+			int i = 0;
+			for (Vertex vertex : vertices) {
+				xs[i] = vertex.x();
+				ys[i] = vertex.y();
+				i++;
+			}
+			return new ArrayVertexColumns(xs, ys);
+		}
+	}
+
+	int size();
+
+	double x(int index);
+
+	double y(int index);
+
+	/**
+	 * @return the bounds of the vertices. Implementations that track them return in constant time,
+	 * the default implementation scans all the vertices
+	 */
+	default GraphBounds bounds() {
+		return GraphBounds.fromVertexColumns(this);
+	}
+
+	/**
+	 * @return true if the x coordinates never decrease, so the renderers can binary-search the visible vertices.
+	 * Implementations that track it return in constant time, the default implementation scans all the vertices
+	 */
+	default boolean isSortedByX() {
+		int size = size();
+		for (int i = 1; i < size; i++) {
+			if (!(x(i - 1) <= x(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return a {@link List} view of these columns
+	 */
+	default List<Vertex> asList() {
+		return new VertexColumnsList(this);
+	}
+}
@@ -0,0 +1,30 @@
+package it.cavallium.jlinegraph;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Read-only {@link java.util.List} view of {@link VertexColumns}, vertices are created on access
+ */
+final class VertexColumnsList extends AbstractList<Vertex> implements RandomAccess {
+
+	private final VertexColumns columns;
+
+	VertexColumnsList(VertexColumns columns) {
+		this.columns = columns;
+	}
+
+	VertexColumns columns() {
+		return columns;
+	}
+
+	@Override
+	public Vertex get(int index) {
+		return new Vertex(columns.x(index), columns.y(index));
+	}
+
+	@Override
+	public int size() {
+		return columns.size();
+	}
+}
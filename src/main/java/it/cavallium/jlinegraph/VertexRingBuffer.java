@@ -0,0 +1,200 @@
+package it.cavallium.jlinegraph;
+
+/**
+ * Mutable, bounded series of vertices for live charts.
+ * <p>
+ * When the buffer is full, appending a vertex evicts the oldest one.
+ * The minimum and maximum of both coordinates are maintained incrementally with monotonic deques,
+ * so {@link #bounds()} runs in constant time and a new {@link GraphData} can be built at every update
+ * without scanning the vertices. NaN coordinates are ignored by the bounds, like in {@link GraphBounds}.
+ * The consecutive vertices that are not sorted by x are counted too, so {@link #isSortedByX()} runs in constant time.
+ * <p>
+ * This class is not thread-safe: do not append while a graph that contains it is being rendered.
+ */
+public final class VertexRingBuffer implements VertexColumns {
+
+	private final double[] xs;
+	private final double[] ys;
+	private final MonotonicDeque minX;
+	private final MonotonicDeque maxX;
+	private final MonotonicDeque minY;
+	private final MonotonicDeque maxY;
+	/**
+	 * Sequence number of the oldest vertex
+	 */
+	private long first;
+	private int size;
+	/**
+	 * Number of vertices with an x coordinate not greater or equal than the one of the previous vertex
+	 */
+	private int unsortedVertices;
+
+	/**
+	 * @param capacity maximum number of vertices kept
+	 */
+	public VertexRingBuffer(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be greater than zero");
+		}
+		this.xs = new double[capacity];
+		this.ys = new double[capacity];
+		this.minX = new MonotonicDeque(xs, true);
+		this.maxX = new MonotonicDeque(xs, false);
+		this.minY = new MonotonicDeque(ys, true);
+		this.maxY = new MonotonicDeque(ys, false);
+	}
+
+	/**
+	 * Appends a vertex, evicting the oldest one if the buffer is full
+	 */
+	public void append(double x, double y) {
+		if (size == xs.length) {
+			evict();
+		}
+		long sequence = first + size;
+		int slot = slot(sequence);
+		if (size > 0 && !(xs[slot(sequence - 1)] <= x)) {
+			unsortedVertices++;
+		}
+		xs[slot] = x;
+		ys[slot] = y;
+		size++;
+		minX.push(sequence);
+		maxX.push(sequence);
+		minY.push(sequence);
+		maxY.push(sequence);
+	}
+
+	/**
+	 * Removes the oldest vertex
+	 */
+	public void evict() {
+		if (size == 0) {
+			throw new IllegalStateException("The buffer is empty");
+		}
+		minX.evict(first);
+		maxX.evict(first);
+		minY.evict(first);
+		maxY.evict(first);
+		if (size > 1 && !(xs[slot(first)] <= xs[slot(first + 1)])) {
+			unsortedVertices--;
+		}
+		first++;
+		size--;
+	}
+
+	/**
+	 * Removes all the vertices
+	 */
+	public void clear() {
+		first += size;
+		size = 0;
+		unsortedVertices = 0;
+		minX.clear();
+		maxX.clear();
+		minY.clear();
+		maxY.clear();
+	}
+
+	public int capacity() {
+		return xs.length;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public double x(int index) {
+		return xs[slot(checkIndex(index))];
+	}
+
+	@Override
+	public double y(int index) {
+		return ys[slot(checkIndex(index))];
+	}
+
+	@Override
+	public GraphBounds bounds() {
+		if (size == 0) {
+			return GraphBounds.fromVertexColumns(this);
+		}
+		return new GraphBounds(minX.peek(), minY.peek(), maxX.peek(), maxY.peek());
+	}
+
+	@Override
+	public boolean isSortedByX() {
+		return unsortedVertices == 0;
+	}
+
+	private long checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		return first + index;
+	}
+
+	private int slot(long sequence) {
+		return (int) (sequence % xs.length);
+	}
+
+	/**
+	 * Deque of sequence numbers whose values are monotonic, the front is the extreme of the window.
+	 * NaN values are never pushed, they can't be compared with the others
+	 */
+	private final class MonotonicDeque {
+
+		private final double[] values;
+		private final boolean min;
+		private final long[] sequences;
+		private int head;
+		private int length;
+
+		MonotonicDeque(double[] values, boolean min) {
+			this.values = values;
+			this.min = min;
+			this.sequences = new long[values.length];
+		}
+
+		void push(long sequence) {
+			double value = values[slot(sequence)];
+			if (Double.isNaN(value)) {
+				return;
+			}
+			while (length > 0) {
+				double last = values[slot(sequences[(head + length - 1) % sequences.length])];
+				if (min ? last >= value : last <= value) {
+					length--;
+				} else {
+					break;
+				}
+			}
+			sequences[(head + length) % sequences.length] = sequence;
+			length++;
+		}
+
+		void evict(long sequence) {
+			if (length > 0 && sequences[head] == sequence) {
+				head = (head + 1) % sequences.length;
+				length--;
+			}
+		}
+
+		/**
+		 * @return the extreme of the window, or the same initial extreme of {@link GraphBounds#fromVertexColumns}
+		 * if all the values are NaN
+		 */
+		double peek() {
+			if (length == 0) {
+				return min ? Double.MAX_VALUE : -Double.MAX_VALUE;
+			}
+			return values[slot(sequences[head])];
+		}
+
+		void clear() {
+			head = 0;
+			length = 0;
+		}
+	}
+}